@@ -0,0 +1,82 @@
+package eus.unai.instancegen;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end generation of {@code amount} instances with the default configuration into a
+ * temporary directory, as {@link InstanceGenerator#main(String[])} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"1000"})
+    private int amount;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    @Param({"files", "zip", "packed"})
+    private String sink;
+
+    @Param({"false", "true"})
+    private boolean stream;
+
+    private final Date creationDate = new Date();
+    private InstanceSampler sampler;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sampler = new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), creationDate);
+    }
+
+    @Setup(Level.Iteration)
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("instances");
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void generate() throws IOException, ExecutionException, InterruptedException {
+        try (InstanceSink sink = sink()) {
+            InstanceGenerator.generate(sampler, sink, Batch.builder()
+                    .seed(42)
+                    .amount(amount)
+                    .threads(threads)
+                    .stream(stream)
+                    .build());
+        }
+    }
+
+    private InstanceSink sink() throws IOException {
+        switch (sink) {
+            case "zip":
+                return new ZipSink(directory.resolve("instances.zip"), InstanceFormat.OPL, creationDate);
+            case "packed":
+                return new PackedSink(directory, amount);
+            default:
+                return new FileSink(directory, InstanceFormat.OPL);
+        }
+    }
+
+}
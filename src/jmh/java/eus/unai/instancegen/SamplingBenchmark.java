@@ -0,0 +1,112 @@
+package eus.unai.instancegen;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Sampling of the service, bus and driver columns and of whole instances, with {@code size} rows
+ * in every column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SamplingBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int size;
+
+    private InstanceSampler sampler;
+    private long seed;
+
+    private int [] st;
+    private int [] sdt;
+    private int [] sdd;
+    private int [] dem;
+    private int [] cap;
+    private double [] eurosMin;
+    private double [] eurosKm;
+    private int [] maxHours;
+
+    @Setup
+    public void setUp() {
+        Overrides overrides = Overrides.builder()
+                .services(size)
+                .buses(size)
+                .drivers(size)
+                .build();
+        sampler = new InstanceSampler(Configuration.load((String) null), overrides, new Date());
+        st = new int[size];
+        sdt = new int[size];
+        sdd = new int[size];
+        dem = new int[size];
+        cap = new int[size];
+        eurosMin = new double[size];
+        eurosKm = new double[size];
+        maxHours = new int[size];
+    }
+
+    @Benchmark
+    public int [] services() {
+        sampler.fillServices(seed++, st, sdt, sdd, dem);
+        return dem;
+    }
+
+    @Benchmark
+    public double [] buses() {
+        sampler.fillBuses(seed++, cap, eurosMin, eurosKm);
+        return eurosKm;
+    }
+
+    @Benchmark
+    public int [] drivers() {
+        sampler.fillDrivers(seed++, maxHours);
+        return maxHours;
+    }
+
+    // The same columns drawn one value at a time, as the streaming mode does
+
+    @Benchmark
+    public int [] servicesOneByOne() {
+        long seed = this.seed++;
+        Timetable timetable = sampler.timetable(seed);
+        fill(st, sampler.startingTimes(seed, timetable));
+        fill(sdt, sampler.durationsInMinutes(seed, timetable));
+        fill(sdd, sampler.durationsInKilometers(seed, timetable));
+        return fill(dem, sampler.demands(seed, timetable));
+    }
+
+    @Benchmark
+    public double [] busesOneByOne() {
+        long seed = this.seed++;
+        fill(cap, sampler.capacities(seed));
+        fill(eurosMin, sampler.eurosPerMinute(seed));
+        return fill(eurosKm, sampler.eurosPerKilometer(seed));
+    }
+
+    @Benchmark
+    public Instance instance() {
+        return sampler.sample(seed++);
+    }
+
+    private static int [] fill(int [] column, IntSupplier values) {
+        for (int i = 0; i < column.length; i++) {
+            column[i] = values.getAsInt();
+        }
+        return column;
+    }
+
+    private static double [] fill(double [] column, DoubleSupplier values) {
+        for (int i = 0; i < column.length; i++) {
+            column[i] = values.getAsDouble();
+        }
+        return column;
+    }
+
+}
@@ -0,0 +1,105 @@
+package eus.unai.instancegen;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writing an instance with {@code size} services, buses and drivers into a writer that discards
+ * everything: the original string concatenation, {@link Instance#toString()} and {@link InstanceWriter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int size;
+
+    private Instance instance;
+    private final Writer out = new NullWriter();
+
+    @Setup
+    public void setUp() {
+        Overrides overrides = Overrides.builder()
+                .services(size)
+                .buses(size)
+                .drivers(size)
+                .build();
+        instance = new InstanceSampler(Configuration.load((String) null), overrides, new Date()).sample(42);
+    }
+
+    @Benchmark
+    public void legacyToString() throws IOException {
+        out.write(legacyFormat(instance));
+    }
+
+    @Benchmark
+    public void instanceToString() throws IOException {
+        out.write(instance.toString());
+    }
+
+    @Benchmark
+    public void instanceWriter() throws IOException {
+        InstanceWriter writer = new InstanceWriter(out);
+        writer.write(instance);
+        writer.flush();
+    }
+
+    // Instance.toString() as it was before InstanceWriter, kept as the baseline
+    private static String legacyFormat(Instance instance) {
+        DecimalFormat df = new DecimalFormat("#.##");
+        return "" +
+                "/*********************************************\n" +
+                " * OPL 12.8.0.0 Data\n" +
+                " * Author: InstanceGenerator by unai.perez.mendizabal and ferran.torres.morales\n" +
+                " * Creation Date: " + instance.getCreationDate().toString() + "\n" +
+                " *********************************************/\n" +
+                "\n" +
+                " nServices = " + instance.getNServices() + ";\n" +
+                " nBuses = " + instance.getNBuses() + ";\n" +
+                " nDrivers = " + instance.getNDrivers() + ";\n" +
+                "\n" +
+                " maxBuses = " + instance.getMaxBuses() + ";\n" +
+                " BM = " + instance.getBM() + ";\n" +
+                " CBM = " + df.format(instance.getCBM()) + ";\n" +
+                " CEM = " + df.format(instance.getCEM()) + ";\n" +
+                "\n" +
+                " st = [ " + Arrays.stream(instance.getSt()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                " sdt = [ " + Arrays.stream(instance.getSdt()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                " sdd = [ " + Arrays.stream(instance.getSdd()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                " dem = [ " + Arrays.stream(instance.getDem()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                "\n" +
+                " cap = [ " + Arrays.stream(instance.getCap()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                " euros_min = [" + Arrays.stream(instance.getEurosMin()).mapToObj(df::format).collect(Collectors.joining(" ")) + " ];\n" +
+                " euros_km = [" + Arrays.stream(instance.getEurosKm()).mapToObj(df::format).collect(Collectors.joining(" ")) + " ];\n" +
+                "\n" +
+                " maxHours = [ " + Arrays.stream(instance.getMaxHours()).mapToObj(df::format).collect(Collectors.joining(" ")) + " ];\n";
+    }
+
+    private static class NullWriter extends Writer {
+
+        @Override
+        public void write(char [] buffer, int offset, int length) {}
+
+        @Override
+        public void write(String s) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+
+    }
+
+}
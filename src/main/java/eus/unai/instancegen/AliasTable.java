@@ -0,0 +1,64 @@
+package eus.unai.instancegen;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+/**
+ * Samples an index with probability proportional to its weight in constant time, using Vose's
+ * alias method. Building the table takes linear time in the amount of weights.
+ */
+public final class AliasTable {
+
+    private final double [] probability;
+    private final int [] alias;
+
+    public AliasTable(double [] weights) {
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("invalid weight " + weight);
+            }
+            total += weight;
+        }
+        if (n == 0 || total == 0) {
+            throw new IllegalArgumentException("at least one weight must be positive");
+        }
+
+        probability = new double[n];
+        alias = new int[n];
+        double [] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            (scaled[i] < 1 ? small : large).push(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            (scaled[more] < 1 ? small : large).push(more);
+        }
+        // Whatever is left is only away from 1 because of rounding errors
+        while (!large.isEmpty()) {
+            probability[large.pop()] = 1;
+        }
+        while (!small.isEmpty()) {
+            probability[small.pop()] = 1;
+        }
+    }
+
+    public int size() {
+        return probability.length;
+    }
+
+    public int sample(SplittableRandom random) {
+        int i = BulkRandom.nextInt(random, probability.length);
+        return random.nextDouble() < probability[i] ? i : alias[i];
+    }
+
+}
@@ -0,0 +1,31 @@
+package eus.unai.instancegen;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * Parameters of a run of {@link InstanceGenerator#generate(InstanceSampler, InstanceSink, Batch)}.
+ */
+@Value
+@Builder(toBuilder = true)
+public class Batch {
+
+    private long seed;
+    private int amount;
+    private @Builder.Default int threads = 1;
+    private boolean stream;
+    private @Builder.Default InstanceFormat format = InstanceFormat.OPL;
+
+    private @Builder.Default Feasibility feasibility = Feasibility.OFF;
+    // CSV file where the statistics of every instance are written, none if null
+    private Path statistics;
+
+    // Cache where the instances are looked up before sampling them and stored after, none if null
+    private InstanceCache cache;
+
+    // Where the figures of the run are gathered, a fresh one if null
+    private GenerationMetrics metrics;
+
+}
@@ -0,0 +1,66 @@
+package eus.unai.instancegen;
+
+/**
+ * Layout of the binary instance format. Everything is little-endian. A 64-byte header
+ * <pre>
+ *  0  int     magic, "IGEN"
+ *  4  int     version
+ *  8  int     nServices
+ * 12  int     nBuses
+ * 16  int     nDrivers
+ * 20  int     maxBuses
+ * 24  int     BM
+ * 28  int     reserved, 0
+ * 32  double  CBM
+ * 40  double  CEM
+ * 48  long    creation date, in milliseconds since the epoch, or Long.MIN_VALUE if unknown
+ * 56  long    CRC-32 of everything after the header
+ * </pre>
+ * is followed by the columns {@code st}, {@code sdt}, {@code sdd}, {@code dem}, {@code cap}
+ * (ints), {@code euros_min}, {@code euros_km} (doubles) and {@code maxHours} (ints), each of them
+ * starting at a multiple of 8 bytes so that it can be viewed in place from any language.
+ */
+public final class BinaryFormat {
+
+    public final static int MAGIC = 0x4E454749; // "IGEN" read as a little-endian int
+    public final static int VERSION = 1;
+    public final static int HEADER_SIZE = 64;
+
+    final static int N_SERVICES = 8;
+    final static int N_BUSES = 12;
+    final static int N_DRIVERS = 16;
+    final static int MAX_BUSES = 20;
+    final static int BM = 24;
+    final static int CBM = 32;
+    final static int CEM = 40;
+    final static int CREATION_DATE = 48;
+    final static int CHECKSUM = 56;
+
+    final static long NO_DATE = Long.MIN_VALUE;
+
+    private BinaryFormat() {}
+
+    /**
+     * Offsets of the eight columns and, last, the total size of an instance with the given sizes.
+     */
+    static long [] offsets(int nServices, int nBuses, int nDrivers) {
+        long [] offsets = new long[9];
+        long [] sizes = {
+                4L * nServices, 4L * nServices, 4L * nServices, 4L * nServices,
+                4L * nBuses, 8L * nBuses, 8L * nBuses,
+                4L * nDrivers
+        };
+        long offset = HEADER_SIZE;
+        for (int c = 0; c < sizes.length; c++) {
+            offsets[c] = offset;
+            offset = align(offset + sizes[c]);
+        }
+        offsets[8] = offset;
+        return offsets;
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+}
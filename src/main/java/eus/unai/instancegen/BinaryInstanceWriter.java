@@ -0,0 +1,77 @@
+package eus.unai.instancegen;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Writes instances in the {@link BinaryFormat binary format}.
+ */
+public final class BinaryInstanceWriter {
+
+    private BinaryInstanceWriter() {}
+
+    public static ByteBuffer encode(Instance instance) {
+        long [] offsets = BinaryFormat.offsets(instance.getNServices(), instance.getNBuses(), instance.getNDrivers());
+        if (offsets[8] > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("the instance is too large for the binary format: " + offsets[8] + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) offsets[8]).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, BinaryFormat.MAGIC);
+        buffer.putInt(4, BinaryFormat.VERSION);
+        buffer.putInt(BinaryFormat.N_SERVICES, instance.getNServices());
+        buffer.putInt(BinaryFormat.N_BUSES, instance.getNBuses());
+        buffer.putInt(BinaryFormat.N_DRIVERS, instance.getNDrivers());
+        buffer.putInt(BinaryFormat.MAX_BUSES, instance.getMaxBuses());
+        buffer.putInt(BinaryFormat.BM, instance.getBM());
+        buffer.putDouble(BinaryFormat.CBM, instance.getCBM());
+        buffer.putDouble(BinaryFormat.CEM, instance.getCEM());
+        buffer.putLong(BinaryFormat.CREATION_DATE, instance.getCreationDate() == null
+                ? BinaryFormat.NO_DATE : instance.getCreationDate().getTime());
+
+        putInts(buffer, offsets[0], instance.getSt(), instance.getNServices());
+        putInts(buffer, offsets[1], instance.getSdt(), instance.getNServices());
+        putInts(buffer, offsets[2], instance.getSdd(), instance.getNServices());
+        putInts(buffer, offsets[3], instance.getDem(), instance.getNServices());
+        putInts(buffer, offsets[4], instance.getCap(), instance.getNBuses());
+        putDoubles(buffer, offsets[5], instance.getEurosMin(), instance.getNBuses());
+        putDoubles(buffer, offsets[6], instance.getEurosKm(), instance.getNBuses());
+        putInts(buffer, offsets[7], instance.getMaxHours(), instance.getNDrivers());
+
+        // The buffer is moved through Buffer, since ByteBuffer only overrides its methods from
+        // Java 9 on, and a call compiled against the overrides fails on a Java 8 runtime
+        ((Buffer) buffer).position(BinaryFormat.HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        buffer.putLong(BinaryFormat.CHECKSUM, crc.getValue());
+        ((Buffer) buffer).clear();
+        return buffer;
+    }
+
+    public static void write(Instance instance, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = encode(instance);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void putInts(ByteBuffer buffer, long offset, int [] values, int length) {
+        if (values.length != length) {
+            throw new IllegalArgumentException("a column has " + values.length + " values instead of " + length);
+        }
+        ((Buffer) buffer).position((int) offset);
+        buffer.asIntBuffer().put(values);
+    }
+
+    private static void putDoubles(ByteBuffer buffer, long offset, double [] values, int length) {
+        if (values.length != length) {
+            throw new IllegalArgumentException("a column has " + values.length + " values instead of " + length);
+        }
+        ((Buffer) buffer).position((int) offset);
+        buffer.asDoubleBuffer().put(values);
+    }
+
+}
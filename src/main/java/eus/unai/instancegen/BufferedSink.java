@@ -0,0 +1,147 @@
+package eus.unai.instancegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base of the sinks that gather all the instances into a single file. Each instance is rendered
+ * by the thread that generates it, and only appending its bytes to the file is serialized. The
+ * instances are appended in index order, so that the file does not depend on the amount of
+ * threads: those that are rendered before an earlier one wait for it. Instances are rendered in
+ * memory up to a megabyte and into a temporary file beyond that, so that streamed instances keep
+ * using constant memory whatever their size.
+ */
+public abstract class BufferedSink implements InstanceSink {
+
+    private final static int MEMORY_LIMIT = 1 << 20;
+
+    // Rendered instances waiting for an earlier one, by their index
+    private final Map<Integer, Rendering> pending = new HashMap<>();
+    private int next;
+
+    @Override
+    public void write(int index, Content content) throws IOException {
+        Rendering instance = new Rendering();
+        try {
+            content.writeTo(instance);
+        } catch (IOException | RuntimeException | Error e) {
+            instance.close();
+            throw e;
+        }
+        synchronized (this) {
+            pending.put(index, instance);
+            while (pending.containsKey(next)) {
+                try (Rendering appended = pending.remove(next)) {
+                    append(next, appended);
+                }
+                next++;
+            }
+        }
+    }
+
+    protected abstract void append(int index, Rendering instance) throws IOException;
+
+    /**
+     * Ends the file once every instance has been appended.
+     */
+    protected abstract void finish() throws IOException;
+
+    /**
+     * Finishes the file, discarding the instances still waiting for one that failed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            for (Rendering instance : pending.values()) {
+                instance.close();
+            }
+            pending.clear();
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Bytes of a rendered instance, kept in memory until they exceed the limit and moved into a
+     * temporary file then, which is deleted once it is closed.
+     */
+    protected static class Rendering implements WritableByteChannel, Closeable {
+
+        private final ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private Path file;
+        private FileChannel channel;
+        private long size;
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int length = source.remaining();
+            if (channel == null && memory.size() + length > MEMORY_LIMIT) {
+                file = Files.createTempFile("instance", ".tmp");
+                channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                ByteBuffer rendered = ByteBuffer.wrap(memory.toByteArray());
+                while (rendered.hasRemaining()) {
+                    channel.write(rendered);
+                }
+                memory.reset();
+            }
+            if (channel != null) {
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+            } else if (source.hasArray()) {
+                memory.write(source.array(), source.arrayOffset() + source.position(), length);
+                // Called on Buffer, since ByteBuffer only overrides it from Java 9 on, and a
+                // call compiled against the override fails on a Java 8 runtime
+                ((Buffer) source).position(source.limit());
+            } else {
+                byte [] bytes = new byte[length];
+                source.get(bytes);
+                memory.write(bytes, 0, length);
+            }
+            size += length;
+            return length;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        /**
+         * Copies the rendered bytes into the stream, without closing it.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            if (channel == null) {
+                memory.writeTo(out);
+                return;
+            }
+            channel.close();
+            Files.copy(file, out);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                Files.deleteIfExists(file);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package eus.unai.instancegen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Uniform integers from a {@link SplittableRandom}, one by one or filling whole columns at once.
+ * The bounded integers use Lemire's multiply-and-shift method, which is unbiased and, unlike
+ * {@link SplittableRandom#nextInt(int)}, only needs a division in the rare draws it rejects.
+ * Filling a column gives exactly the values of drawing them one by one, so that the instances
+ * sampled in memory and the streamed ones stay the same.
+ */
+public final class BulkRandom {
+
+    private BulkRandom() {}
+
+    /**
+     * Uniform integer in {@code [0, bound)}, for a positive bound.
+     */
+    public static int nextInt(SplittableRandom random, int bound) {
+        long product = (random.nextInt() & 0xFFFFFFFFL) * bound;
+        long low = product & 0xFFFFFFFFL;
+        if (low < bound) {
+            // 2^32 mod bound, the amount of 32-bit values that would make some results more likely
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                product = (random.nextInt() & 0xFFFFFFFFL) * bound;
+                low = product & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Fills the column with uniform integers in {@code [min, max)}, or with {@code min} when both
+     * bounds are equal.
+     */
+    public static void fillUniformInt(SplittableRandom random, int [] dst, int min, int max) {
+        fillUniformInt(random, dst, 0, dst.length, min, max);
+    }
+
+    public static void fillUniformInt(SplittableRandom random, int [] dst, int from, int to, int min, int max) {
+        int span = max - min;
+        if (span == 0) {
+            Arrays.fill(dst, from, to, min);
+            return;
+        }
+        long threshold = (0x100000000L - span) % span;
+        for (int i = from; i < to; i++) {
+            long product = (random.nextInt() & 0xFFFFFFFFL) * span;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = (random.nextInt() & 0xFFFFFFFFL) * span;
+            }
+            dst[i] = min + (int) (product >>> 32);
+        }
+    }
+
+}
@@ -1,14 +1,27 @@
 package eus.unai.instancegen;
 
-import lombok.Builder;
-import lombok.Value;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
 
-@Value
-@Builder
+/**
+ * View over a row of the bus columns of an {@link Instance}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 public class Bus {
 
-    private int capacity;
-    private double eurosPerMinute;
-    private double eurosPerKilometer;
+    private final Instance instance;
+    private final int index;
+
+    public int getCapacity() {
+        return instance.getCap()[index];
+    }
+
+    public double getEurosPerMinute() {
+        return instance.getEurosMin()[index];
+    }
+
+    public double getEurosPerKilometer() {
+        return instance.getEurosKm()[index];
+    }
 
 }
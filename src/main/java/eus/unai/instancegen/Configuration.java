@@ -5,11 +5,13 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 
 import static java.lang.Math.round;
 import static java.lang.Math.toIntExact;
@@ -63,6 +65,12 @@ public class Configuration {
     private final static int DEFAULT_MIN_MAX_HOURS = 6;
     private final static int DEFAULT_MAX_MAX_HOURS = 12;
 
+    private final static int DEFAULT_MIN_ROUTE_AMOUNT = 0; // No routes, every service is independent
+    private final static int DEFAULT_MAX_ROUTE_AMOUNT = 0;
+    private final static double DEFAULT_PEAK_DEMAND_FACTOR = 1.5;
+    private final static String DEFAULT_DEMAND_PEAKS = "60,630"; // 8:00 and 17:30
+    private final static int DEFAULT_PEAK_WIDTH = 60;
+
     private int minServiceAmount;
     private int maxServiceAmount;
 
@@ -75,8 +83,8 @@ public class Configuration {
     private double minMaxBusesProportion;
     private double maxMaxBusesProportion;
 
-    private Function<Integer, Integer> minMaxBuses = maxBuses -> toIntExact(round(minMaxBusesProportion * maxBuses));
-    private Function<Integer, Integer> maxMaxBuses = maxBuses -> toIntExact(round(maxMaxBusesProportion * maxBuses));
+    private IntUnaryOperator minMaxBuses = maxBuses -> toIntExact(round(minMaxBusesProportion * maxBuses));
+    private IntUnaryOperator maxMaxBuses = maxBuses -> toIntExact(round(maxMaxBusesProportion * maxBuses));
 
     private int minBaseMinutes;
     private int maxBaseMinutes;
@@ -96,8 +104,8 @@ public class Configuration {
     private double minDurationMinsProportion;
     private double maxDurationMinsProportion;
 
-    private Function<Integer, Integer> minDurationMins = durationInKms -> toIntExact(round(minDurationMinsProportion * durationInKms));
-    private Function<Integer, Integer> maxDurationMins = durationInKms -> toIntExact(round(maxDurationMinsProportion * durationInKms));
+    private IntUnaryOperator minDurationMins = durationInKms -> toIntExact(round(minDurationMinsProportion * durationInKms));
+    private IntUnaryOperator maxDurationMins = durationInKms -> toIntExact(round(maxDurationMinsProportion * durationInKms));
 
     private int minStartingTime; // Any minute starting from 7:00
     private int maxStartingTime; // up until 22:45
@@ -114,9 +122,26 @@ public class Configuration {
     private int minMaxHours;
     private int maxMaxHours;
 
+    private int minRouteAmount;
+    private int maxRouteAmount;
+    private double peakDemandFactor; // Demand of a trip at a peak relative to the base demand of its route
+    private int [] demandPeaks; // Starting times of the peaks
+    private int peakWidth;
+
+    // Distributions of the attributes of services, buses and drivers, uniform over their range when null
+    private Distribution startingTimeDistribution;
+    private Distribution durationKmsDistribution;
+    private Distribution demandDistribution;
+    private Distribution capacityDistribution;
+    private Distribution eurosPerMinDistribution;
+    private Distribution eurosPerKmDistribution;
+    private Distribution maxHoursDistribution;
+    // Specifications of the distributions above, as given
+    private @Getter(AccessLevel.NONE) String distributions;
+
     private Configuration() {}
 
-    private static Configuration load(Properties props) {
+    public static Configuration load(Properties props) {
         Configuration conf = new Configuration();
         conf.setMinServiceAmount(Optional.ofNullable(props.getProperty("minServiceAmount")).map(Integer::parseInt).orElse(DEFAULT_MIN_SERVICE_AMOUNT));
         conf.setMaxServiceAmount(Optional.ofNullable(props.getProperty("maxServiceAmount")).map(Integer::parseInt).orElse(DEFAULT_MAX_SERVICE_AMOUNT));
@@ -148,13 +173,59 @@ public class Configuration {
         conf.setMaxEurosPerKm(Optional.ofNullable(props.getProperty("maxEurosPerKm")).map(Double::parseDouble).orElse(DEFAULT_MAX_EUROS_PER_KM));
         conf.setMinMaxHours(Optional.ofNullable(props.getProperty("minMaxHours")).map(Integer::parseInt).orElse(DEFAULT_MIN_MAX_HOURS));
         conf.setMaxMaxHours(Optional.ofNullable(props.getProperty("maxMaxHours")).map(Integer::parseInt).orElse(DEFAULT_MAX_MAX_HOURS));
+        conf.setMinRouteAmount(Optional.ofNullable(props.getProperty("minRouteAmount")).map(Integer::parseInt).orElse(DEFAULT_MIN_ROUTE_AMOUNT));
+        conf.setMaxRouteAmount(Optional.ofNullable(props.getProperty("maxRouteAmount")).map(Integer::parseInt).orElse(DEFAULT_MAX_ROUTE_AMOUNT));
+        conf.setPeakDemandFactor(Optional.ofNullable(props.getProperty("peakDemandFactor")).map(Double::parseDouble).orElse(DEFAULT_PEAK_DEMAND_FACTOR));
+        conf.setDemandPeaks(Arrays.stream(props.getProperty("demandPeaks", DEFAULT_DEMAND_PEAKS).split(","))
+                .map(String::trim)
+                .filter(peak -> !peak.isEmpty())
+                .mapToInt(Integer::parseInt)
+                .toArray());
+        conf.setPeakWidth(Optional.ofNullable(props.getProperty("peakWidth")).map(Integer::parseInt).orElse(DEFAULT_PEAK_WIDTH));
+        conf.setStartingTimeDistribution(Optional.ofNullable(props.getProperty("startingTime.dist")).map(Distributions::parse).orElse(null));
+        conf.setDurationKmsDistribution(Optional.ofNullable(props.getProperty("durationKms.dist")).map(Distributions::parse).orElse(null));
+        conf.setDemandDistribution(Optional.ofNullable(props.getProperty("demand.dist")).map(Distributions::parse).orElse(null));
+        conf.setCapacityDistribution(Optional.ofNullable(props.getProperty("capacity.dist")).map(Distributions::parse).orElse(null));
+        conf.setEurosPerMinDistribution(Optional.ofNullable(props.getProperty("eurosPerMin.dist")).map(Distributions::parse).orElse(null));
+        conf.setEurosPerKmDistribution(Optional.ofNullable(props.getProperty("eurosPerKm.dist")).map(Distributions::parse).orElse(null));
+        conf.setMaxHoursDistribution(Optional.ofNullable(props.getProperty("maxHours.dist")).map(Distributions::parse).orElse(null));
+        StringBuilder distributions = new StringBuilder();
+        for (String name : new String [] { "startingTime", "durationKms", "demand", "capacity", "eurosPerMin", "eurosPerKm", "maxHours" }) {
+            distributions.append(name).append(".dist=").append(props.getProperty(name + ".dist", "uniform").trim()).append('\n');
+        }
+        conf.setDistributions(distributions.toString());
         return conf;
     }
 
+    /**
+     * Describes the effective configuration, defaults included, so that loading the same
+     * properties in any order or spelling out a default gives the same description.
+     */
+    public String describe() {
+        return "serviceAmount=" + minServiceAmount + "," + maxServiceAmount + "\n"
+                + "busAmount=" + minBusAmount + "," + maxBusAmount + "\n"
+                + "driverAmount=" + minDriverAmount + "," + maxDriverAmount + "\n"
+                + "maxBusesProportion=" + minMaxBusesProportion + "," + maxMaxBusesProportion + "\n"
+                + "baseMinutes=" + minBaseMinutes + "," + maxBaseMinutes + "\n"
+                + "basePay=" + minBasePay + "," + maxBasePay + "\n"
+                + "extraPay=" + minExtraPay + "," + maxExtraPay + "\n"
+                + "demand=" + minDemand + "," + maxDemand + "\n"
+                + "durationKms=" + minDurationKms + "," + maxDurationKms + "\n"
+                + "durationMinsProportion=" + minDurationMinsProportion + "," + maxDurationMinsProportion + "\n"
+                + "startingTime=" + minStartingTime + "," + maxStartingTime + "\n"
+                + "capacity=" + minCapacity + "," + maxCapacity + "\n"
+                + "eurosPerMin=" + minEurosPerMin + "," + maxEurosPerMin + "\n"
+                + "eurosPerKm=" + minEurosPerKm + "," + maxEurosPerKm + "\n"
+                + "maxHours=" + minMaxHours + "," + maxMaxHours + "\n"
+                + "routeAmount=" + minRouteAmount + "," + maxRouteAmount + "\n"
+                + "demandPeaks=" + peakDemandFactor + "," + Arrays.toString(demandPeaks) + "," + peakWidth + "\n"
+                + distributions;
+    }
+
     public static Configuration load(String filename) {
-        try {
+        try (InputStream in = Files.newInputStream(Paths.get(filename))) {
             Properties props = new Properties();
-            props.load(Files.newInputStream(Paths.get(filename)));
+            props.load(in);
             return load(props);
         } catch (IOException | NullPointerException e) {
             if (filename != null) {
@@ -0,0 +1,15 @@
+package eus.unai.instancegen;
+
+import java.util.SplittableRandom;
+
+/**
+ * Probability distribution over the reals. Implementations precompute everything they can when
+ * they are created, hold no mutable state and can therefore be shared by all the threads.
+ * {@link Distributions} builds them from their textual description.
+ */
+@FunctionalInterface
+public interface Distribution {
+
+    double sample(SplittableRandom random);
+
+}
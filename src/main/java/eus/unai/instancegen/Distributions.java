@@ -0,0 +1,283 @@
+package eus.unai.instancegen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds {@link Distribution distributions} from descriptions such as
+ * {@code mixture(normal(90, 30), normal(600, 45))}. The available distributions are:
+ * <ul>
+ *     <li>{@code uniform(min, max)}</li>
+ *     <li>{@code normal(mean, deviation)}</li>
+ *     <li>{@code poisson(mean)}</li>
+ *     <li>{@code constant(value)}</li>
+ *     <li>{@code discrete(value:weight, ...)}, an empirical distribution over single values</li>
+ *     <li>{@code histogram(min, max, weight, ...)}, an empirical distribution over as many
+ *     equal-width bins between {@code min} and {@code max} as weights are given</li>
+ *     <li>{@code mixture(distribution:weight, ...)}, where weights default to 1</li>
+ * </ul>
+ * Empirical distributions and mixtures pick their value or component with an {@link AliasTable},
+ * so every draw takes constant time regardless of the amount of values or components.
+ */
+public final class Distributions {
+
+    // Below this mean, Poisson variates are drawn by inversion, whose cost grows with the mean
+    private final static double POISSON_INVERSION_LIMIT = 10;
+
+    private Distributions() {}
+
+    public static Distribution uniform(double min, double max) {
+        if (!(max >= min)) {
+            throw new IllegalArgumentException("uniform(" + min + ", " + max + ") is empty");
+        }
+        double span = max - min;
+        return random -> min + span * random.nextDouble();
+    }
+
+    public static Distribution normal(double mean, double deviation) {
+        if (!(deviation >= 0)) {
+            throw new IllegalArgumentException("normal(" + mean + ", " + deviation + ") has a negative deviation");
+        }
+        // Marsaglia's polar method, dropping the second variate to stay stateless
+        return random -> {
+            double u, v, s;
+            do {
+                u = 2 * random.nextDouble() - 1;
+                v = 2 * random.nextDouble() - 1;
+                s = u * u + v * v;
+            } while (s >= 1 || s == 0);
+            return mean + deviation * u * Math.sqrt(-2 * Math.log(s) / s);
+        };
+    }
+
+    public static Distribution poisson(double mean) {
+        if (!(mean > 0) || Double.isInfinite(mean)) {
+            throw new IllegalArgumentException("poisson(" + mean + ") needs a positive mean");
+        }
+        if (mean < POISSON_INVERSION_LIMIT) {
+            double limit = Math.exp(-mean);
+            return random -> {
+                int k = 0;
+                double p = random.nextDouble();
+                while (p > limit) {
+                    k++;
+                    p *= random.nextDouble();
+                }
+                return k;
+            };
+        }
+        // Hormann's transformed rejection with squeeze (PTRS), in constant expected time
+        double logMean = Math.log(mean);
+        double b = 0.931 + 2.53 * Math.sqrt(mean);
+        double a = -0.059 + 0.02483 * b;
+        double logInverseAlpha = Math.log(1.1239 + 1.1328 / (b - 3.4));
+        double vr = 0.9277 - 3.6224 / (b - 2);
+        return random -> {
+            while (true) {
+                double u = random.nextDouble() - 0.5;
+                double v = random.nextDouble();
+                double us = 0.5 - Math.abs(u);
+                double k = Math.floor((2 * a / us + b) * u + mean + 0.43);
+                if (us >= 0.07 && v <= vr) {
+                    return k;
+                }
+                if (k < 0 || (us < 0.013 && v > us)) {
+                    continue;
+                }
+                if (Math.log(v) + logInverseAlpha - Math.log(a / (us * us) + b) <= -mean + k * logMean - logFactorial(k)) {
+                    return k;
+                }
+            }
+        };
+    }
+
+    public static Distribution constant(double value) {
+        return random -> value;
+    }
+
+    public static Distribution discrete(double [] values, double [] weights) {
+        AliasTable table = new AliasTable(weights);
+        double [] copy = values.clone();
+        return random -> copy[table.sample(random)];
+    }
+
+    public static Distribution histogram(double min, double max, double [] weights) {
+        if (!(max > min)) {
+            throw new IllegalArgumentException("histogram(" + min + ", " + max + ", ...) is empty");
+        }
+        AliasTable table = new AliasTable(weights);
+        double width = (max - min) / weights.length;
+        return random -> min + width * (table.sample(random) + random.nextDouble());
+    }
+
+    public static Distribution mixture(Distribution [] components, double [] weights) {
+        AliasTable table = new AliasTable(weights);
+        Distribution [] copy = components.clone();
+        return random -> copy[table.sample(random)].sample(random);
+    }
+
+    private static double logFactorial(double k) {
+        if (k < 10) {
+            double factorial = 1;
+            for (int i = 2; i <= k; i++) {
+                factorial *= i;
+            }
+            return Math.log(factorial);
+        }
+        // Stirling's series, accurate to double precision from 10 on
+        double k2 = k * k;
+        return (k + 0.5) * Math.log(k) - k + 0.5 * Math.log(2 * Math.PI)
+                + (1 / 12D - (1 / 360D - 1 / (1260D * k2)) / k2) / k;
+    }
+
+    /**
+     * Parses the description of a distribution.
+     *
+     * @throws IllegalArgumentException if the description is not valid
+     */
+    public static Distribution parse(String description) {
+        Parser parser = new Parser(description);
+        Distribution distribution = parser.distribution();
+        parser.expectEnd();
+        return distribution;
+    }
+
+    private static class Parser {
+
+        private final String text;
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private Distribution distribution() {
+            String name = name();
+            expect('(');
+            Distribution distribution;
+            switch (name) {
+                case "uniform":
+                    distribution = uniform(number(), next(','));
+                    break;
+                case "normal":
+                    distribution = normal(number(), next(','));
+                    break;
+                case "poisson":
+                    distribution = poisson(number());
+                    break;
+                case "constant":
+                    distribution = constant(number());
+                    break;
+                case "discrete": {
+                    List<double []> pairs = new ArrayList<>();
+                    do {
+                        double value = number();
+                        pairs.add(new double[] { value, weight() });
+                    } while (accept(','));
+                    double [] values = new double[pairs.size()];
+                    double [] weights = new double[pairs.size()];
+                    for (int i = 0; i < pairs.size(); i++) {
+                        values[i] = pairs.get(i)[0];
+                        weights[i] = pairs.get(i)[1];
+                    }
+                    distribution = discrete(values, weights);
+                    break;
+                }
+                case "histogram": {
+                    double min = number();
+                    double max = next(',');
+                    List<Double> weights = new ArrayList<>();
+                    while (accept(',')) {
+                        weights.add(number());
+                    }
+                    distribution = histogram(min, max, weights.stream().mapToDouble(Double::doubleValue).toArray());
+                    break;
+                }
+                case "mixture": {
+                    List<Distribution> components = new ArrayList<>();
+                    List<Double> weights = new ArrayList<>();
+                    do {
+                        components.add(distribution());
+                        weights.add(weight());
+                    } while (accept(','));
+                    distribution = mixture(components.toArray(new Distribution[0]),
+                            weights.stream().mapToDouble(Double::doubleValue).toArray());
+                    break;
+                }
+                default:
+                    throw error("unknown distribution " + name);
+            }
+            expect(')');
+            return distribution;
+        }
+
+        private double weight() {
+            return accept(':') ? number() : 1;
+        }
+
+        private double next(char separator) {
+            expect(separator);
+            return number();
+        }
+
+        private String name() {
+            skipSpaces();
+            int start = position;
+            while (position < text.length() && Character.isLetter(text.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("expected the name of a distribution");
+            }
+            return text.substring(start, position);
+        }
+
+        private double number() {
+            skipSpaces();
+            int start = position;
+            while (position < text.length() && "+-.0123456789eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            try {
+                return Double.parseDouble(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                position = start;
+                throw error("expected a number");
+            }
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        private void expectEnd() {
+            skipSpaces();
+            if (position < text.length()) {
+                throw error("unexpected '" + text.charAt(position) + "'");
+            }
+        }
+
+        private void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " of \"" + text + "\"");
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+package eus.unai.instancegen;
+
+import java.util.SplittableRandom;
+
+/**
+ * Uniform doubles in {@code [min, max)}, or {@code min} when both bounds are equal. The bounds
+ * are checked once, when the range is created, instead of on every draw.
+ */
+public final class DoubleRange implements DoubleSampler {
+
+    private final String name;
+    private final double min;
+    private final double span;
+
+    private DoubleRange(String name, double min, double span) {
+        this.name = name;
+        this.min = min;
+        this.span = span;
+    }
+
+    public static DoubleRange of(String name, double min, double max) {
+        if (!(max >= min)) {
+            throw new IllegalArgumentException("the range of " + name + " is empty: [" + min + ", " + max + ")");
+        }
+        return new DoubleRange(name, min, max - min);
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return min + span;
+    }
+
+    /**
+     * Whether this range, or a distribution truncated to it, can produce the value, give or take
+     * the tolerance, e.g. the rounding of the decimals written into an OPL file.
+     */
+    public boolean contains(double value, double tolerance) {
+        return value >= min - tolerance && value <= min + span + tolerance;
+    }
+
+    @Override
+    public String toString() {
+        return span == 0 ? String.valueOf(min) : "[" + min + ", " + (min + span) + ")";
+    }
+
+    private boolean contains(double value) {
+        return value >= min && value < min + span;
+    }
+
+    /**
+     * Samples the distribution instead of the uniform one, truncated to this range like
+     * {@link IntRange#with(Distribution)} does.
+     *
+     * @throws IllegalArgumentException if less than {@link IntRange#MIN_ACCEPTANCE} of the draws
+     * of the distribution fall within the range
+     */
+    public DoubleSampler with(Distribution distribution) {
+        if (span == 0) {
+            return random -> min;
+        }
+        SplittableRandom probe = new SplittableRandom(0);
+        int accepted = 0;
+        for (int i = 0; i < IntRange.MAX_DRAWS; i++) {
+            if (contains(distribution.sample(probe))) {
+                accepted++;
+            }
+        }
+        if (accepted < IntRange.MIN_ACCEPTANCE * IntRange.MAX_DRAWS) {
+            throw new IllegalArgumentException("only " + 100.0 * accepted / IntRange.MAX_DRAWS + "% of the draws of the distribution of "
+                    + name + " fall within " + this);
+        }
+        double max = Math.nextDown(min + span);
+        return random -> {
+            double value = distribution.sample(random);
+            for (int draws = 1; draws < IntRange.MAX_DRAWS && !contains(value); draws++) {
+                value = distribution.sample(random);
+            }
+            return contains(value) ? value : value > max ? max : min;
+        };
+    }
+
+    @Override
+    public double sample(SplittableRandom random) {
+        return min + span * random.nextDouble();
+    }
+
+    @Override
+    public void fill(SplittableRandom random, double [] column) {
+        double min = this.min;
+        double span = this.span;
+        for (int i = 0; i < column.length; i++) {
+            column[i] = min + span * random.nextDouble();
+        }
+    }
+
+}
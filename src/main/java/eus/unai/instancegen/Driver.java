@@ -1,12 +1,19 @@
 package eus.unai.instancegen;
 
-import lombok.Builder;
-import lombok.Value;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
 
-@Builder
-@Value
+/**
+ * View over a row of the driver column of an {@link Instance}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 public class Driver {
 
-    private int maxHours;
+    private final Instance instance;
+    private final int index;
+
+    public int getMaxHours() {
+        return instance.getMaxHours()[index];
+    }
 
 }
@@ -0,0 +1,15 @@
+package eus.unai.instancegen;
+
+/**
+ * What to do with the instances that {@link InstanceStatistics} proves infeasible.
+ */
+public enum Feasibility {
+
+    /** Neither check nor report */
+    OFF,
+    /** Keep them, reporting them in the statistics index */
+    TAG,
+    /** Sample them again with another seed until they pass the checks */
+    REJECT
+
+}
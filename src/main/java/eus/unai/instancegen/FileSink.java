@@ -0,0 +1,60 @@
+package eus.unai.instancegen;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes every instance into its own {@code data<i>.dat} (or {@code .bin}) file of a directory.
+ */
+public class FileSink implements InstanceSink {
+
+    private final Path directory;
+    private final InstanceFormat format;
+
+    public FileSink(Path directory, InstanceFormat format) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.format = format;
+    }
+
+    @Override
+    public void write(int index, Content content) throws IOException {
+        try (FileChannel channel = create(directory.resolve(format.fileName(index)))) {
+            content.writeTo(channel);
+        }
+    }
+
+    /**
+     * Opens a new file in place of the given one rather than truncating it, since the old one may
+     * be a hard link into an {@link InstanceCache}, whose entry would be overwritten too.
+     */
+    static FileChannel create(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Hard-links the file, unless it is already there, and only copies it when the file system
+     * cannot link it.
+     */
+    @Override
+    public void write(int index, Path file) throws IOException {
+        Path target = directory.resolve(format.fileName(index));
+        if (Files.exists(target) && Files.isSameFile(target, file)) {
+            return;
+        }
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, file);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            InstanceSink.super.write(index, file);
+        }
+    }
+
+    @Override
+    public void close() {}
+
+}
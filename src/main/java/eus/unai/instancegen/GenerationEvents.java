@@ -0,0 +1,153 @@
+package eus.unai.instancegen;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR events of the generation, which cost next to nothing unless a recording enables them, e.g.
+ * with {@code -XX:StartFlightRecording=filename=generation.jfr}. The JVMs without JFR skip them.
+ */
+final class GenerationEvents {
+
+    private final static boolean AVAILABLE = available();
+
+    private GenerationEvents() {}
+
+    private static boolean available() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return FlightRecorder.isAvailable();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static Object begin() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        InstanceEvent event = new InstanceEvent();
+        event.begin();
+        return event;
+    }
+
+    static void instance(Object begun, int index, boolean cached, int rejected, long bytes,
+                         long sampling, long serialization, long io) {
+        if (begun == null) {
+            return;
+        }
+        InstanceEvent event = (InstanceEvent) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.index = index;
+            event.cached = cached;
+            event.rejected = rejected;
+            event.bytes = bytes;
+            event.sampling = sampling;
+            event.serialization = serialization;
+            event.io = io;
+            event.commit();
+        }
+    }
+
+    static void batch(long startNanos, long endNanos, long instances, long cached, long bytes,
+                      long sampling, long serialization, long io, long rejected) {
+        if (!AVAILABLE) {
+            return;
+        }
+        BatchEvent event = new BatchEvent();
+        if (event.shouldCommit()) {
+            event.instances = instances;
+            event.cached = cached;
+            event.bytes = bytes;
+            event.elapsed = endNanos - startNanos;
+            event.sampling = sampling;
+            event.serialization = serialization;
+            event.io = io;
+            event.rejected = rejected;
+            event.commit();
+        }
+    }
+
+    @Name("eus.unai.instancegen.Instance")
+    @Label("Instance Generated")
+    @Category("Instance Generator")
+    @StackTrace(false)
+    static class InstanceEvent extends Event {
+
+        @Label("Index")
+        int index;
+
+        @Label("Cached")
+        @Description("Taken from the cache instead of sampled")
+        boolean cached;
+
+        @Label("Rejected Draws")
+        int rejected;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+
+        @Label("Sampling")
+        @Timespan
+        long sampling;
+
+        @Label("Serialization")
+        @Timespan
+        long serialization;
+
+        @Label("I/O")
+        @Timespan
+        long io;
+
+    }
+
+    @Name("eus.unai.instancegen.Batch")
+    @Label("Batch Generated")
+    @Category("Instance Generator")
+    @StackTrace(false)
+    static class BatchEvent extends Event {
+
+        @Label("Instances")
+        long instances;
+
+        @Label("Cached Instances")
+        long cached;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
+
+        @Label("Elapsed")
+        @Timespan
+        long elapsed;
+
+        @Label("Sampling")
+        @Description("Added up over all the threads")
+        @Timespan
+        long sampling;
+
+        @Label("Serialization")
+        @Description("Added up over all the threads")
+        @Timespan
+        long serialization;
+
+        @Label("I/O")
+        @Description("Added up over all the threads")
+        @Timespan
+        long io;
+
+        @Label("Rejected Draws")
+        long rejected;
+
+    }
+
+}
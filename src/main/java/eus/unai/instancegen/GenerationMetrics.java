@@ -0,0 +1,268 @@
+package eus.unai.instancegen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Figures of a generation run, gathered by the threads that generate the instances: how long
+ * they spend sampling, serializing and writing, how many bytes they write and allocate, how many
+ * draws the feasibility checks reject, and how much time the JVM spends collecting garbage.
+ * Every instance is also committed as a JFR event when a recording is running.
+ * <p>
+ * The times of the phases are added up over all the threads. In streaming mode the sampling
+ * happens while serializing, so it is counted as serialization.
+ */
+public class GenerationMetrics {
+
+    private final static double NANOS_PER_SECOND = 1e9;
+
+    private final int amount;
+    private final long startNanos = System.nanoTime();
+    private final long startGcMillis = gcMillis();
+    private final long startCpuNanos = cpuNanos();
+    private volatile long endNanos;
+
+    private final LongAdder instances = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder samplingNanos = new LongAdder();
+    private final LongAdder serializationNanos = new LongAdder();
+    private final LongAdder ioNanos = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    /**
+     * @param amount amount of instances the run is expected to generate
+     */
+    public GenerationMetrics(int amount) {
+        this.amount = amount;
+    }
+
+    /**
+     * Starts measuring an instance, from the thread that generates it.
+     */
+    public Measurement start(int index) {
+        return new Measurement(index);
+    }
+
+    /**
+     * Stops the clock of the run and commits its summary as a JFR event.
+     */
+    public void finish() {
+        endNanos = System.nanoTime();
+        GenerationEvents.batch(startNanos, endNanos, instances.sum(), cached.sum(), bytes.sum(),
+                samplingNanos.sum(), serializationNanos.sum(), ioNanos.sum(), rejections.sum());
+    }
+
+    /**
+     * Prints a progress line into the given stream every given amount of seconds, until closed.
+     */
+    public Closeable progress(long seconds, PrintStream out) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> out.println(progressLine()), seconds, seconds, TimeUnit.SECONDS);
+        return scheduler::shutdownNow;
+    }
+
+    String progressLine() {
+        double elapsed = elapsedSeconds();
+        long done = instances.sum();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return String.format(Locale.ROOT, "[%.0fs] %d/%d instances (%.1f%%), %.1f instances/s, %.1f MB written, "
+                        + "%.1f MB/s allocated, heap %d/%d MB, GC %.1f%%, CPU %.0f%%",
+                elapsed, done, amount, amount == 0 ? 100.0 : 100.0 * done / amount, done / elapsed,
+                bytes.sum() / 1e6, allocatedBytes.sum() / 1e6 / elapsed,
+                heap.getUsed() >> 20, heap.getMax() >> 20, gcShare(elapsed), cpuShare(elapsed));
+    }
+
+    /**
+     * Summary of the run as a JSON object.
+     *
+     * @param status how the run ended, e.g. completed or failed
+     */
+    public String toJson(String status) {
+        double elapsed = elapsedSeconds();
+        long done = instances.sum();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return String.format(Locale.ROOT, "{\n"
+                        + "  \"status\": \"%s\",\n"
+                        + "  \"instances\": %d,\n"
+                        + "  \"expectedInstances\": %d,\n"
+                        + "  \"cachedInstances\": %d,\n"
+                        + "  \"elapsedSeconds\": %.3f,\n"
+                        + "  \"instancesPerSecond\": %.3f,\n"
+                        + "  \"bytesWritten\": %d,\n"
+                        + "  \"samplingSeconds\": %.3f,\n"
+                        + "  \"serializationSeconds\": %.3f,\n"
+                        + "  \"ioSeconds\": %.3f,\n"
+                        + "  \"feasibilityRejections\": %d,\n"
+                        + "  \"allocatedBytes\": %d,\n"
+                        + "  \"allocationBytesPerSecond\": %.0f,\n"
+                        + "  \"gcSeconds\": %.3f,\n"
+                        + "  \"cpuSeconds\": %.3f,\n"
+                        + "  \"heapUsedBytes\": %d,\n"
+                        + "  \"heapMaxBytes\": %d\n"
+                        + "}\n",
+                status, done, amount, cached.sum(), elapsed, done / elapsed, bytes.sum(),
+                samplingNanos.sum() / NANOS_PER_SECOND, serializationNanos.sum() / NANOS_PER_SECOND, ioNanos.sum() / NANOS_PER_SECOND,
+                rejections.sum(), allocatedBytes.sum(), allocatedBytes.sum() / elapsed,
+                (gcMillis() - startGcMillis) / 1e3, Math.max(0, cpuNanos() - startCpuNanos) / NANOS_PER_SECOND,
+                heap.getUsed(), heap.getMax());
+    }
+
+    private double elapsedSeconds() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return Math.max(end - startNanos, 1) / NANOS_PER_SECOND;
+    }
+
+    private double gcShare(double elapsed) {
+        return 100 * (gcMillis() - startGcMillis) / 1e3 / elapsed;
+    }
+
+    private double cpuShare(double elapsed) {
+        return 100 * Math.max(0, cpuNanos() - startCpuNanos) / NANOS_PER_SECOND / elapsed;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(collector.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+
+    private static long cpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or 0 if the JVM cannot tell.
+     */
+    private static long threadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Measures the generation of one instance. It is used by a single thread.
+     */
+    public final class Measurement {
+
+        private final int index;
+        private final Object event = GenerationEvents.begin();
+        private final long start = System.nanoTime();
+        private final long startAllocatedBytes = threadAllocatedBytes();
+        private long sampled;
+        private long serialization;
+        private long written;
+
+        private Measurement(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Marks the end of the sampling of the instance, including the feasibility checks.
+         */
+        public void sampled() {
+            sampled = System.nanoTime();
+        }
+
+        /**
+         * Wraps the content of the instance to measure its serialization and the bytes it writes.
+         */
+        public InstanceSink.Content meter(InstanceSink.Content content) {
+            return channel -> {
+                long begin = System.nanoTime();
+                MeteredChannel metered = new MeteredChannel(channel);
+                content.writeTo(metered);
+                serialization += System.nanoTime() - begin - metered.nanos;
+                written += metered.bytes;
+            };
+        }
+
+        /**
+         * Ends the measurement once the instance is in the sink.
+         *
+         * @param cached whether the instance was taken from the cache instead of being sampled
+         * @param rejected amount of draws the feasibility checks rejected before this instance
+         */
+        public void finish(boolean cached, int rejected) {
+            long end = System.nanoTime();
+            long sampling = sampled == 0 ? 0 : sampled - start;
+            long io = end - (sampled == 0 ? start : sampled) - serialization;
+            instances.increment();
+            if (cached) {
+                GenerationMetrics.this.cached.increment();
+            }
+            rejections.add(rejected);
+            bytes.add(written);
+            samplingNanos.add(sampling);
+            serializationNanos.add(serialization);
+            ioNanos.add(io);
+            allocatedBytes.add(Math.max(0, threadAllocatedBytes() - startAllocatedBytes));
+            GenerationEvents.instance(event, index, cached, rejected, written, sampling, serialization, io);
+        }
+
+    }
+
+    /**
+     * Counts the bytes written into a channel and the time spent writing them.
+     */
+    private static class MeteredChannel implements WritableByteChannel {
+
+        private final WritableByteChannel channel;
+        private long bytes;
+        private long nanos;
+
+        private MeteredChannel(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            long begin = System.nanoTime();
+            int written = channel.write(source);
+            nanos += System.nanoTime() - begin;
+            bytes += written;
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,366 @@
+package eus.unai.instancegen;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Local HTTP server that keeps the generator warm between batches. A {@code POST /generate}
+ * request carries the configuration in its body, as a properties file or as a flat JSON object
+ * with the same keys, and the rest of the parameters in its query string: {@code amount},
+ * {@code seed}, and the overrides {@code services}, {@code buses}, {@code drivers},
+ * {@code maxBuses}, {@code baseMinutes}, {@code basePay}, {@code extraPay} and {@code routes}. The instances
+ * are answered as a zip archive with a {@code data<i>.dat} entry each.
+ * <p>
+ * Parsed configurations are cached. The archive is streamed to the client while it is being
+ * generated, on a pool of generation threads apart from the ones that serve the requests, and
+ * identical requests that arrive before the first one has sent any byte are answered with the
+ * same stream instead of generating it again.
+ */
+public class GeneratorServer {
+
+    private final static int CONFIGURATION_CACHE_SIZE = 64;
+    private final static int DEFAULT_INSTANCE_AMOUNT = 30;
+
+    private final static Pattern JSON_LITERAL = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?|true|false");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ExecutorService generation;
+
+    private final Map<String, Configuration> configurations = Collections.synchronizedMap(new ConfigurationCache());
+
+    private final Map<String, Broadcast> inFlight = new ConcurrentHashMap<>();
+
+    public GeneratorServer(int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        generation = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/generate", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        generation.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                generate(exchange);
+            } else {
+                respond(exchange, 405, "Only POST is supported");
+            }
+        } catch (IllegalArgumentException e) {
+            fail(exchange, 400, e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(exchange, 503, "The server is shutting down", e);
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            fail(exchange, 500, String.valueOf(e.getMessage()), e);
+        }
+        exchange.close();
+    }
+
+    private void generate(HttpExchange exchange) throws IOException, ExecutionException, InterruptedException {
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        String body = read(exchange.getRequestBody());
+
+        Properties properties = body.trim().startsWith("{") ? json(body) : properties(body);
+        String canonical = new TreeMap<>(properties).toString();
+        Configuration conf = configurations.computeIfAbsent(canonical, key -> Configuration.load(properties));
+
+        Overrides overrides = Overrides.from(query);
+        int amount = Optional.ofNullable(query.get("amount")).map(Integer::parseInt).orElse(DEFAULT_INSTANCE_AMOUNT);
+        if (amount < 0) {
+            throw new IllegalArgumentException("the amount of instances cannot be negative");
+        }
+        long seed = Optional.ofNullable(query.get("seed")).map(Long::parseLong)
+                .orElseGet(() -> ThreadLocalRandom.current().nextLong());
+        // Invalid configurations and overrides are rejected here, while an error status can still be answered
+        Date creationDate = new Date();
+        InstanceSampler sampler = new InstanceSampler(conf, overrides, creationDate);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/zip");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        String key = canonical + overrides + amount + "/" + seed;
+        Broadcast own = new Broadcast(out);
+        Broadcast shared = inFlight.putIfAbsent(key, own);
+        if (shared != null && shared.join(out)) {
+            if (!shared.await()) {
+                throw new IOException("the archive shared with an identical request could not be generated");
+            }
+            return;
+        }
+        boolean generated = false;
+        try {
+            try (InstanceSink sink = new ZipSink(own, InstanceFormat.OPL, creationDate)) {
+                InstanceGenerator.generate(sampler, sink, Batch.builder()
+                        .seed(seed)
+                        .amount(amount)
+                        .build(), generation);
+            }
+            generated = true;
+        } finally {
+            inFlight.remove(key, own);
+            own.finish(generated);
+        }
+    }
+
+    /**
+     * Answers the failure with an error status if the response has not started yet. Otherwise the
+     * failure is thrown, so that the server drops the connection instead of ending the archive
+     * as if it were complete.
+     */
+    private static void fail(HttpExchange exchange, int status, String message, Exception e) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            throw new IOException("the archive could not be completed", e);
+        }
+        respond(exchange, status, message);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte [] bytes = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte [] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> query(String raw) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null) {
+            return query;
+        }
+        for (String parameter : raw.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static Properties properties(String body) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(body));
+        return properties;
+    }
+
+    /**
+     * Reads a flat JSON object whose values are numbers, booleans or strings, which is all a
+     * configuration needs, and rejects any other value or text after the object.
+     */
+    private static Properties json(String body) {
+        Properties properties = new Properties();
+        String text = body.trim();
+        int position = skipSpaces(text, 1);
+        if (position < text.length() && text.charAt(position) == '}') {
+            position++;
+        } else {
+            while (true) {
+                int end = closingQuote(text, position);
+                String key = text.substring(position + 1, end);
+                position = skipSpaces(text, end + 1);
+                if (position >= text.length() || text.charAt(position) != ':') {
+                    throw new IllegalArgumentException("expected ':' at position " + position + " of the JSON configuration");
+                }
+                position = skipSpaces(text, position + 1);
+                if (position < text.length() && text.charAt(position) == '"') {
+                    end = closingQuote(text, position);
+                    properties.setProperty(key, text.substring(position + 1, end));
+                    position = end + 1;
+                } else {
+                    end = position;
+                    while (end < text.length() && text.charAt(end) != ',' && text.charAt(end) != '}'
+                            && !Character.isWhitespace(text.charAt(end))) {
+                        end++;
+                    }
+                    String value = text.substring(position, end);
+                    if (!JSON_LITERAL.matcher(value).matches()) {
+                        throw new IllegalArgumentException("expected a number, a boolean or a string at position "
+                                + position + " of the JSON configuration");
+                    }
+                    properties.setProperty(key, value);
+                    position = end;
+                }
+                position = skipSpaces(text, position);
+                if (position < text.length() && text.charAt(position) == ',') {
+                    position = skipSpaces(text, position + 1);
+                } else if (position < text.length() && text.charAt(position) == '}') {
+                    position++;
+                    break;
+                } else {
+                    throw new IllegalArgumentException("expected ',' or '}' at position " + position + " of the JSON configuration");
+                }
+            }
+        }
+        if (position < text.length()) {
+            throw new IllegalArgumentException("unexpected text at position " + position + " after the JSON configuration");
+        }
+        return properties;
+    }
+
+    private static int closingQuote(String text, int position) {
+        int end = position < text.length() && text.charAt(position) == '"' ? text.indexOf('"', position + 1) : -1;
+        if (end < 0) {
+            throw new IllegalArgumentException("expected a string at position " + position + " of the JSON configuration");
+        }
+        return end;
+    }
+
+    private static int skipSpaces(String text, int position) {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+
+    private static class ConfigurationCache extends LinkedHashMap<String, Configuration> {
+
+        private static final long serialVersionUID = 1L;
+
+        ConfigurationCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Configuration> eldest) {
+            return size() > CONFIGURATION_CACHE_SIZE;
+        }
+
+    }
+
+    /**
+     * Copies the archive of a request into the responses of the identical requests that joined it
+     * before its first byte. A client that goes away is dropped, and the generation only fails
+     * once no client is left.
+     */
+    private static class Broadcast extends OutputStream {
+
+        private final List<OutputStream> clients = new ArrayList<>();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private boolean started;
+        private volatile boolean generated;
+
+        Broadcast(OutputStream client) {
+            clients.add(client);
+        }
+
+        synchronized boolean join(OutputStream client) {
+            if (started) {
+                return false;
+            }
+            clients.add(client);
+            return true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte [] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte [] bytes, int offset, int length) throws IOException {
+            started = true;
+            for (Iterator<OutputStream> client = clients.iterator(); client.hasNext(); ) {
+                try {
+                    client.next().write(bytes, offset, length);
+                } catch (IOException e) {
+                    client.remove();
+                }
+            }
+            if (clients.isEmpty()) {
+                throw new IOException("every client went away");
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            for (Iterator<OutputStream> client = clients.iterator(); client.hasNext(); ) {
+                try {
+                    client.next().flush();
+                } catch (IOException e) {
+                    client.remove();
+                }
+            }
+        }
+
+        /**
+         * Ends the archive without closing the responses, which every request closes on its own.
+         */
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        synchronized void finish(boolean generated) {
+            // No client may join once the archive is over, even if it is empty
+            started = true;
+            this.generated = generated;
+            finished.countDown();
+        }
+
+        /**
+         * Waits for the archive to be over and tells whether it was complete.
+         */
+        boolean await() throws InterruptedException {
+            finished.await();
+            return generated;
+        }
+
+    }
+
+}
@@ -2,15 +2,17 @@ package eus.unai.instancegen;
 
 import lombok.*;
 
-import java.text.DecimalFormat;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.Date;
-import java.util.stream.Collectors;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class Instance {
 
+    private Date creationDate;
+
     private int nServices;
     private int nBuses;
     private int nDrivers;
@@ -20,39 +22,44 @@ public class Instance {
     private double CBM;
     private double CEM;
 
-    private @Setter(AccessLevel.NONE) Service[] services;
-    private @Setter(AccessLevel.NONE) Bus[] buses;
-    private @Setter(AccessLevel.NONE) Driver[] drivers;
+    // Services, one column per attribute
+    private @Setter(AccessLevel.NONE) int [] st;
+    private @Setter(AccessLevel.NONE) int [] sdt;
+    private @Setter(AccessLevel.NONE) int [] sdd;
+    private @Setter(AccessLevel.NONE) int [] dem;
+
+    // Buses
+    private @Setter(AccessLevel.NONE) int [] cap;
+    private @Setter(AccessLevel.NONE) double [] eurosMin;
+    private @Setter(AccessLevel.NONE) double [] eurosKm;
+
+    // Drivers
+    private @Setter(AccessLevel.NONE) int [] maxHours;
+
+    public Service getService(int index) {
+        return new Service(this, index);
+    }
+
+    public Bus getBus(int index) {
+        return new Bus(this, index);
+    }
+
+    public Driver getDriver(int index) {
+        return new Driver(this, index);
+    }
 
+    /**
+     * Builds the whole OPL data file in memory. Prefer {@link InstanceWriter} to write it anywhere.
+     */
     @Override
     public String toString() {
-        DecimalFormat df = new DecimalFormat("#.##");
-        return "" +
-                "/*********************************************\n" +
-                " * OPL 12.8.0.0 Data\n" +
-                " * Author: InstanceGenerator by unai.perez.mendizabal and ferran.torres.morales\n" +
-                " * Creation Date: " + new Date().toString() + "\n" +
-                " *********************************************/\n" +
-                "\n" +
-                " nServices = " + nServices + ";\n" +
-                " nBuses = " + nBuses + ";\n" +
-                " nDrivers = " + nDrivers + ";\n" +
-                "\n" +
-                " maxBuses = " + maxBuses + ";\n" +
-                " BM = " + BM + ";\n" +
-                " CBM = " + df.format(CBM) + ";\n" +
-                " CEM = " + df.format(CEM) + ";\n" +
-                "\n" +
-                " st = [ " + Arrays.stream(this.services).map(s -> Integer.toString(s.getStartingTime())).collect(Collectors.joining(" ")) + " ];\n" +
-                " sdt = [ " + Arrays.stream(this.services).map(s -> Integer.toString(s.getDurationInMinutes())).collect(Collectors.joining(" ")) + " ];\n" +
-                " sdd = [ " + Arrays.stream(this.services).map(s -> Integer.toString(s.getDurationInKilometers())).collect(Collectors.joining(" ")) + " ];\n" +
-                " dem = [ " + Arrays.stream(this.services).map(s -> Integer.toString(s.getDemand())).collect(Collectors.joining(" ")) + " ];\n" +
-                "\n" +
-                " cap = [ " + Arrays.stream(this.buses).map(b -> Integer.toString(b.getCapacity())).collect(Collectors.joining(" ")) + " ];\n" +
-                " euros_min = [" + Arrays.stream(this.buses).map(b -> df.format(b.getEurosPerMinute())).collect(Collectors.joining(" ")) + " ];\n" +
-                " euros_km = [" + Arrays.stream(this.buses).map(b -> df.format(b.getEurosPerKilometer())).collect(Collectors.joining(" ")) + " ];\n" +
-                "\n" +
-                " maxHours = [ " + Arrays.stream(this.drivers).map(d -> df.format(d.getMaxHours())).collect(Collectors.joining(" ")) + " ];\n";
+        StringWriter out = new StringWriter();
+        try (InstanceWriter writer = new InstanceWriter(out)) {
+            writer.write(this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
     }
 
 }
@@ -0,0 +1,188 @@
+package eus.unai.instancegen;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A content-addressed store of generated instances. Every instance is keyed by a hash of the
+ * effective configuration, the overrides, the format, the feasibility check and its seed, so that
+ * a run only generates the instances whose key is not stored yet, whatever the amount of the
+ * batch. The creation date is not part of the key: a stored instance keeps the date it was first
+ * generated with.
+ * <p>
+ * The entries are plain files, spread over subdirectories by the first two characters of their
+ * key, and their modification time is the last time they were used. {@link #evict()} removes the
+ * least recently used ones until the store fits its size.
+ */
+public class InstanceCache {
+
+    // Changes whenever the instances sampled for the same key change
+    private final static String VERSION = "6";
+    private final static String STATISTICS_EXTENSION = "csv";
+    private final static String TEMPORARY_EXTENSION = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public InstanceCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Key shared by all the instances of a batch, which {@link #key(String, long)} completes with
+     * the seed of each instance.
+     */
+    public static String batchKey(InstanceSampler sampler, Batch batch) {
+        return hash(VERSION + "\n" + sampler.describe() + batch.getFormat() + "\n" + batch.getFeasibility());
+    }
+
+    public static String key(String batchKey, long seed) {
+        return hash(batchKey + "/" + seed);
+    }
+
+    /**
+     * @return the stored instance with the given key, or null if there is none
+     */
+    public Path get(String key, InstanceFormat format) throws IOException {
+        Path entry = entry(key, format.getExtension());
+        return touch(entry) ? entry : null;
+    }
+
+    /**
+     * Stores the instance with the given key, which other threads and processes only see once it
+     * is complete.
+     *
+     * @return the stored instance
+     */
+    public Path put(String key, InstanceFormat format, InstanceSink.Content content) throws IOException {
+        return store(entry(key, format.getExtension()), content);
+    }
+
+    /**
+     * @return the statistics stored along the instance with the given key, or null if there are none
+     */
+    public String getStatistics(String key) throws IOException {
+        Path entry = entry(key, STATISTICS_EXTENSION);
+        if (!touch(entry)) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(entry), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    public void putStatistics(String key, String statistics) throws IOException {
+        store(entry(key, STATISTICS_EXTENSION), channel -> channel.write(StandardCharsets.UTF_8.encode(statistics)));
+    }
+
+    private static Path store(Path entry, InstanceSink.Content content) throws IOException {
+        Files.createDirectories(entry.getParent());
+        // Not Files.createTempFile, whose owner-only permissions the hard links into the output would keep
+        Path temporary = entry.resolveSibling(entry.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                + TEMPORARY_EXTENSION);
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                content.writeTo(channel);
+            }
+            return Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the size of the cache is within its limit.
+     *
+     * @return the amount of bytes removed
+     */
+    public long evict() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.walk(directory)) {
+            entries = files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(TEMPORARY_EXTENSION))
+                    .collect(Collectors.toList());
+        }
+        List<Entry> sized = new ArrayList<>(entries.size());
+        long total = 0;
+        for (Path file : entries) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                sized.add(new Entry(file, attributes.size(), attributes.lastModifiedTime()));
+                total += attributes.size();
+            } catch (NoSuchFileException e) {
+                // Evicted by another process meanwhile
+            }
+        }
+        sized.sort(Comparator.comparing((Entry entry) -> entry.lastUsed));
+        long removed = 0;
+        for (Entry entry : sized) {
+            if (total - removed <= maxBytes) {
+                break;
+            }
+            if (Files.deleteIfExists(entry.file)) {
+                removed += entry.size;
+            }
+        }
+        return removed;
+    }
+
+    private static class Entry {
+
+        private final Path file;
+        private final long size;
+        private final FileTime lastUsed;
+
+        private Entry(Path file, long size, FileTime lastUsed) {
+            this.file = file;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+
+    }
+
+    private Path entry(String key, String extension) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + "." + extension);
+    }
+
+    private static boolean touch(Path entry) throws IOException {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static String hash(String text) {
+        try {
+            byte [] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package eus.unai.instancegen;
+
+/**
+ * File formats in which instances can be written.
+ */
+public enum InstanceFormat {
+
+    /** OPL data, as read by the OPL model */
+    OPL("dat"),
+    /** The binary columns of {@link BinaryFormat} */
+    BINARY("bin");
+
+    private final String extension;
+
+    InstanceFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String fileName(int index) {
+        return "data" + index + "." + extension;
+    }
+
+}
@@ -2,16 +2,40 @@ package eus.unai.instancegen;
 
 import org.apache.commons.cli.*;
 
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class InstanceGenerator {
 
     private final static int DEFAULT_INSTANCE_AMOUNT = 30;
+    private final static int DEFAULT_THREAD_AMOUNT = 1;
+    private final static String DEFAULT_OUTPUT_DIRECTORY = ".";
+    private final static String DEFAULT_SINK = "files";
+    private final static List<String> SINKS = Arrays.asList("files", "zip", "tgz", "packed");
+    private final static int DEFAULT_SERVER_THREAD_AMOUNT = 4;
+    private final static int MAX_FEASIBILITY_ATTEMPTS = 1000;
+    private final static String STATISTICS_FILE = "statistics.csv";
+    private final static String MANIFEST_FILE = "manifest.csv";
+    private final static int DEFAULT_SWEEP_SAMPLES = 10;
+    private final static long DEFAULT_CACHE_SIZE = 4L << 30;
 
     private static Options options() {
         Options options = new Options();
@@ -60,6 +84,118 @@ public class InstanceGenerator {
                 .desc("Amount payed to the drivers for each extra minute worked")
                 .hasArg()
                 .build());
+        options.addOption(Option.builder("t")
+                .longOpt("threads")
+                .desc("Amount of threads used to generate the instances")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder("s")
+                .longOpt("seed")
+                .desc("Master seed from which the seed of every instance is derived")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("stream")
+                .desc("Writes every instance column by column as it is sampled, without holding it in memory")
+                .build());
+        options.addOption(Option.builder("o")
+                .longOpt("output")
+                .desc("Directory where the instances are written")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("sink")
+                .desc("How the instances are written: files (one file per instance), zip, tgz or packed (single file with an offset index)")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("routes")
+                .argName("amount")
+                .desc("Amount of routes whose periodic trips make up the services, instead of drawing every service independently")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("server")
+                .argName("port")
+                .desc("Serves POST /generate requests on the given local port instead of generating a batch")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("check")
+                .desc("Checks necessary feasibility conditions and writes the statistics of every instance into statistics.csv: "
+                        + "tag (only reports infeasible instances) or reject (samples them again)")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("format")
+                .desc("Format of the instances: opl (default) or binary")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("convert")
+                .argName("files")
+                .desc("Converts the given OPL .dat files into binary .bin files and the other way around, into the output directory")
+                .hasArgs()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("sweep")
+                .argName("name=values")
+                .desc("Sweeps a parameter (services, buses, drivers, maxBuses, baseMinutes, basePay, extraPay or routes) over a list "
+                        + "(100,200,400), a range (100:400:100) or a Latin hypercube (lhs(100,400)), generating the amount of "
+                        + "instances for every cell of the design into its own directory")
+                .hasArgs()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("samples")
+                .argName("amount")
+                .desc("Amount of points of the Latin hypercube of a sweep")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("cache")
+                .argName("directory")
+                .desc("Takes the instances already generated with the same configuration and seed from the given cache "
+                        + "directory, and stores the new ones into it")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("cache-size")
+                .argName("size")
+                .desc("Size the cache is trimmed to after generating, removing the least recently used instances, "
+                        + "in bytes or with a K, M or G suffix (default 4G)")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("progress")
+                .argName("seconds")
+                .desc("Prints a progress line into the standard error every given amount of seconds")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("metrics")
+                .argName("file")
+                .desc("Writes a JSON summary of the run (times of each phase, throughput, bytes, allocation, GC) into the given file")
+                .hasArg()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("validate")
+                .argName("paths")
+                .desc("Checks the lengths of the arrays and the ranges of the values of the given instances, or of those found "
+                        + "in the given directories, against the configuration and overrides")
+                .hasArgs()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("stats")
+                .argName("paths")
+                .desc("Summarizes every attribute of the given instances, or of those found in the given directories, as CSV")
+                .hasArgs()
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("diff")
+                .argName("before> <after")
+                .desc("Reports the instances that changed between two directories and how their attributes drifted")
+                .numberOfArgs(2)
+                .build());
         options.addOption(Option.builder("h")
                 .longOpt("help")
                 .desc("Prints help")
@@ -67,6 +203,418 @@ public class InstanceGenerator {
         return options;
     }
 
+    private static InstanceSink sink(String type, Path output, int amount, InstanceFormat format, Date creationDate)
+            throws ParseException, IOException {
+        switch (type) {
+            case "files":
+                return new FileSink(output, format);
+            case "zip":
+                return new ZipSink(output.resolve("instances.zip"), format, creationDate);
+            case "tgz":
+                return new TarGzSink(output.resolve("instances.tar.gz"), format, creationDate);
+            case "packed":
+                return new PackedSink(output, amount);
+            default:
+                throw new ParseException("Unknown sink " + type);
+        }
+    }
+
+    private static InstanceFormat format(String format) throws ParseException {
+        switch (format) {
+            case "opl":
+                return InstanceFormat.OPL;
+            case "binary":
+                return InstanceFormat.BINARY;
+            default:
+                throw new ParseException("Unknown format " + format);
+        }
+    }
+
+    private static long size(String size) throws ParseException {
+        String digits = size.trim().toUpperCase();
+        int shift = 0;
+        switch (digits.isEmpty() ? ' ' : digits.charAt(digits.length() - 1)) {
+            case 'K': shift = 10; break;
+            case 'M': shift = 20; break;
+            case 'G': shift = 30; break;
+            default: break;
+        }
+        if (shift > 0) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        try {
+            return Long.parseLong(digits) << shift;
+        } catch (NumberFormatException e) {
+            throw new ParseException("Unknown size " + size);
+        }
+    }
+
+    private static int threads(CommandLine cmd, int defaultThreads) throws ParseException {
+        int threads = Optional.ofNullable(cmd.getOptionValue("t")).map(Integer::parseInt).orElse(defaultThreads);
+        if (threads <= 0) {
+            throw new ParseException("The amount of threads must be positive: " + threads);
+        }
+        return threads;
+    }
+
+    private static List<Path> paths(String [] paths) {
+        List<Path> list = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            list.add(Paths.get(path));
+        }
+        return list;
+    }
+
+    private static Feasibility feasibility(String check) throws ParseException {
+        switch (check) {
+            case "tag":
+                return Feasibility.TAG;
+            case "reject":
+                return Feasibility.REJECT;
+            default:
+                throw new ParseException("Unknown feasibility check " + check);
+        }
+    }
+
+    /**
+     * Generates the instances of the batch into the sink, sampling instance {@code i} with the
+     * seed derived from the master seed and {@code i}. When the batch checks feasibility and
+     * rejects infeasible instances, attempt {@code a} of instance {@code i} derives its seed from
+     * that seed and {@code a}. When the batch has a cache, the instances already stored in it are
+     * taken from there, and the rest are stored into it as they are generated.
+     */
+    public static void generate(InstanceSampler sampler, InstanceSink sink, Batch batch)
+            throws IOException, ExecutionException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(batch.getThreads());
+        try {
+            generate(sampler, sink, batch, executor);
+        } finally {
+            // The sink is closed after this returns, so no instance may still be writing into it
+            executor.shutdownNow();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Generates the instances of the batch on the given executor, which other batches can share,
+     * instead of on threads of its own. Once an instance fails, those that have not started yet
+     * are skipped, and the failure is only thrown when the rest are done.
+     */
+    public static void generate(InstanceSampler sampler, InstanceSink sink, Batch batch, ExecutorService executor)
+            throws IOException, ExecutionException, InterruptedException {
+        String [] statistics = batch.getFeasibility() == Feasibility.OFF ? null : new String[batch.getAmount()];
+        await(submit(sampler, sink, batch, executor, statistics, new AtomicBoolean()));
+        writeStatistics(batch, statistics);
+    }
+
+    /**
+     * Hands every instance of the batch to the executor, recording their statistics if there is
+     * an array for them. The instances that have not started once the flag is set are skipped,
+     * and a failing one sets it.
+     */
+    private static List<Future<Void>> submit(InstanceSampler sampler, InstanceSink sink, Batch batch, ExecutorService executor,
+                                             String [] statistics, AtomicBoolean failed) {
+        String cacheKey = batch.getCache() == null ? null : InstanceCache.batchKey(sampler, batch);
+        GenerationMetrics metrics = batch.getMetrics() != null ? batch.getMetrics() : new GenerationMetrics(batch.getAmount());
+        List<Future<Void>> futures = new ArrayList<>(batch.getAmount());
+        for (int i = 0; i < batch.getAmount(); i++) {
+            final int index = i;
+            futures.add(executor.submit(() -> {
+                if (failed.get()) {
+                    return null;
+                }
+                try {
+                    generateInstance(sampler, sink, batch, index, cacheKey, statistics, metrics);
+                } catch (Exception | Error e) {
+                    failed.set(true);
+                    throw e;
+                }
+                return null;
+            }));
+        }
+        return futures;
+    }
+
+    private static void writeStatistics(Batch batch, String [] statistics) throws IOException {
+        if (statistics != null && batch.getStatistics() != null) {
+            List<String> lines = new ArrayList<>(statistics.length + 1);
+            lines.add("index,seed,rejected," + InstanceStatistics.csvHeader());
+            lines.addAll(Arrays.asList(statistics));
+            Files.createDirectories(batch.getStatistics().toAbsolutePath().getParent());
+            Files.write(batch.getStatistics(), lines);
+        }
+    }
+
+    private static void generateInstance(InstanceSampler sampler, InstanceSink sink, Batch batch, int index,
+                                         String cacheKey, String [] statistics, GenerationMetrics metrics) throws IOException {
+        GenerationMetrics.Measurement measurement = metrics.start(index);
+        long firstSeed = InstanceSampler.seedFor(batch.getSeed(), index);
+        String key = cacheKey == null ? null : InstanceCache.key(cacheKey, firstSeed);
+        if (key != null) {
+            Path cached = batch.getCache().get(key, batch.getFormat());
+            String cachedStatistics = statistics == null ? "" : batch.getCache().getStatistics(key);
+            if (cached != null && cachedStatistics != null) {
+                if (statistics != null) {
+                    statistics[index] = index + "," + cachedStatistics;
+                }
+                sink.write(index, cached);
+                measurement.finish(true, 0);
+                return;
+            }
+        }
+        long instanceSeed = firstSeed;
+        Instance instance = batch.isStream() ? null : sampler.sample(instanceSeed);
+        int attempt = 0;
+        InstanceStatistics instanceStatistics = null;
+        // Unless it may be rejected, a streamed instance is not replayed beforehand, and its
+        // statistics are gathered while it is written
+        if (statistics != null && !(batch.isStream() && batch.getFeasibility() == Feasibility.TAG)) {
+            instanceStatistics = batch.isStream() ? sampler.statistics(instanceSeed) : sampler.statistics(instance);
+            while (batch.getFeasibility() == Feasibility.REJECT && !instanceStatistics.isFeasible()) {
+                if (++attempt > MAX_FEASIBILITY_ATTEMPTS) {
+                    throw new IllegalArgumentException("no feasible instance " + index + " was found in "
+                            + MAX_FEASIBILITY_ATTEMPTS + " attempts, the last one because " + instanceStatistics.getInfeasibility());
+                }
+                instanceSeed = InstanceSampler.retrySeed(firstSeed, attempt);
+                instance = batch.isStream() ? null : sampler.sample(instanceSeed);
+                instanceStatistics = batch.isStream() ? sampler.statistics(instanceSeed) : sampler.statistics(instance);
+            }
+        }
+        measurement.sampled();
+        long writtenSeed = instanceSeed;
+        Instance writtenInstance = instance;
+        boolean collect = statistics != null && instanceStatistics == null;
+        InstanceStatistics [] streamed = new InstanceStatistics[1];
+        InstanceSink.Content content = measurement.meter(channel -> {
+            if (batch.getFormat() == InstanceFormat.BINARY) {
+                BinaryInstanceWriter.write(writtenInstance, channel);
+                return;
+            }
+            InstanceWriter writer = new InstanceWriter(channel);
+            if (collect) {
+                streamed[0] = sampler.streamWithStatistics(writtenSeed, writer);
+            } else if (batch.isStream()) {
+                sampler.stream(writtenSeed, writer);
+            } else {
+                writer.write(writtenInstance);
+            }
+            writer.flush();
+        });
+        if (key != null) {
+            sink.write(index, batch.getCache().put(key, batch.getFormat(), content));
+        } else {
+            sink.write(index, content);
+        }
+        if (statistics != null) {
+            if (instanceStatistics == null) {
+                instanceStatistics = streamed[0];
+            }
+            statistics[index] = index + "," + instanceSeed + "," + attempt + "," + instanceStatistics.toCsv();
+            if (key != null) {
+                batch.getCache().putStatistics(key, instanceSeed + "," + attempt + "," + instanceStatistics.toCsv());
+            }
+        }
+        measurement.finish(false, attempt);
+    }
+
+    /**
+     * Waits for every task, also after one of them fails, and then throws the first failure.
+     */
+    private static void await(List<Future<Void>> futures) throws ExecutionException, InterruptedException {
+        ExecutionException failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            if (failure.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) failure.getCause();
+            }
+            throw failure;
+        }
+    }
+
+    /**
+     * Generates a batch for every cell of a sweep into the {@code cell<k>} directory of the output,
+     * handing the instances of all the cells, one cell after the other, to a single pool with the
+     * threads of the batch, and writes a manifest with the parameters and the seed of each cell.
+     * The seeds of the cells are derived from the seed of the batch in a domain of their own, and
+     * running a cell alone with its seed and its parameters gives the same instances again.
+     */
+    public static void sweep(Configuration conf, Overrides overrides, Sweep sweep, Date creationDate,
+                             Path output, String sinkType, Batch batch)
+            throws IOException, ExecutionException, InterruptedException {
+        List<Map<String, String>> cells = sweep.cells(batch.getSeed());
+        List<String> manifest = new ArrayList<>(cells.size() + 1);
+        manifest.add("cell,directory,seed,amount," + String.join(",", sweep.getParameters()));
+        for (int k = 0; k < cells.size(); k++) {
+            manifest.add(k + ",cell" + k + "," + cellSeed(batch.getSeed(), k) + "," + batch.getAmount()
+                    + "," + String.join(",", cells.get(k).values()));
+        }
+        Files.createDirectories(output);
+        Files.write(output.resolve(MANIFEST_FILE), manifest);
+
+        // Every cell is checked before any instance is generated
+        List<InstanceSampler> samplers = new ArrayList<>(cells.size());
+        for (int k = 0; k < cells.size(); k++) {
+            Overrides cellOverrides = overrides;
+            for (Map.Entry<String, String> parameter : cells.get(k).entrySet()) {
+                cellOverrides = cellOverrides.with(parameter.getKey(), parameter.getValue());
+            }
+            try {
+                samplers.add(new InstanceSampler(conf, cellOverrides, creationDate));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("cell " + k + " " + cells.get(k) + ": " + e.getMessage(), e);
+            }
+        }
+
+        List<Batch> batches = new ArrayList<>(cells.size());
+        List<String []> statistics = new ArrayList<>(cells.size());
+        List<CellSink> sinks = new ArrayList<>(cells.size());
+        ExecutorService executor = Executors.newFixedThreadPool(batch.getThreads());
+        try {
+            AtomicBoolean failed = new AtomicBoolean();
+            List<Future<Void>> futures = new ArrayList<>(cells.size() * batch.getAmount());
+            for (int k = 0; k < cells.size(); k++) {
+                Path directory = output.resolve("cell" + k);
+                Batch cellBatch = batch.toBuilder()
+                        .seed(cellSeed(batch.getSeed(), k))
+                        .statistics(batch.getStatistics() == null ? null : directory.resolve(STATISTICS_FILE))
+                        .build();
+                String [] cellStatistics = batch.getFeasibility() == Feasibility.OFF ? null : new String[batch.getAmount()];
+                CellSink sink = new CellSink(() -> {
+                    try {
+                        return sink(sinkType, directory, batch.getAmount(), batch.getFormat(), creationDate);
+                    } catch (ParseException e) {
+                        throw new IllegalArgumentException(e.getMessage(), e);
+                    }
+                }, batch.getAmount());
+                batches.add(cellBatch);
+                statistics.add(cellStatistics);
+                sinks.add(sink);
+                futures.addAll(submit(samplers.get(k), sink, cellBatch, executor, cellStatistics, failed));
+            }
+            await(futures);
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            for (CellSink sink : sinks) {
+                sink.close();
+            }
+        }
+        for (int k = 0; k < cells.size(); k++) {
+            writeStatistics(batches.get(k), statistics.get(k));
+        }
+    }
+
+    static long cellSeed(long seed, int cell) {
+        return InstanceSampler.seedFor(seed, InstanceSampler.CELLS, cell);
+    }
+
+    /**
+     * Sink of a cell of a sweep, opened with its first instance and closed with its last one, so
+     * that only the cells being generated hold their files open.
+     */
+    private static class CellSink implements InstanceSink {
+
+        private final Opener opener;
+        private InstanceSink sink;
+        private int remaining;
+
+        CellSink(Opener opener, int amount) {
+            this.opener = opener;
+            this.remaining = amount;
+        }
+
+        @Override
+        public void write(int index, Content content) throws IOException {
+            open().write(index, content);
+            written();
+        }
+
+        @Override
+        public void write(int index, Path file) throws IOException {
+            open().write(index, file);
+            written();
+        }
+
+        private synchronized InstanceSink open() throws IOException {
+            if (sink == null) {
+                sink = opener.open();
+            }
+            return sink;
+        }
+
+        private synchronized void written() throws IOException {
+            if (--remaining == 0) {
+                close();
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (sink == null && remaining == 0) {
+                // A cell without instances still gets its (empty) output
+                sink = opener.open();
+            }
+            if (sink != null) {
+                sink.close();
+                sink = null;
+                remaining = -1;
+            }
+        }
+
+        @FunctionalInterface
+        interface Opener {
+
+            InstanceSink open() throws IOException;
+
+        }
+
+    }
+
+    /**
+     * Converts an OPL data file into the binary format and a binary file into an OPL data file,
+     * deciding by the extension of the file, and writes it with the other extension into the
+     * directory, or next to the file if there is none. Since the OPL files round the decimals,
+     * only the conversion from OPL and back gives the same file again.
+     *
+     * @return the converted file
+     * @throws IllegalArgumentException if the file cannot be parsed or its checksum does not match
+     */
+    public static Path convert(Path file, Path directory) throws IOException {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot < 0 ? "" : name.substring(dot + 1);
+        String base = dot < 0 ? name : name.substring(0, dot);
+        Path parent = directory != null ? directory : file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        if (extension.equals(InstanceFormat.BINARY.getExtension())) {
+            InstanceReader reader = InstanceReader.open(file);
+            if (!reader.verifyChecksum()) {
+                throw new IllegalArgumentException("the checksum does not match");
+            }
+            Path converted = parent.resolve(base + "." + InstanceFormat.OPL.getExtension());
+            try (InstanceWriter writer = new InstanceWriter(FileSink.create(converted))) {
+                writer.write(reader.toInstance());
+            }
+            return converted;
+        } else {
+            Instance instance = OplParser.parse(file);
+            Path converted = parent.resolve(base + "." + InstanceFormat.BINARY.getExtension());
+            try (FileChannel channel = FileSink.create(converted)) {
+                BinaryInstanceWriter.write(instance, channel);
+            }
+            return converted;
+        }
+    }
+
     public static void main(String [] args) {
         try {
             CommandLineParser parser = new DefaultParser();
@@ -77,101 +625,186 @@ public class InstanceGenerator {
                 help.printHelp("InstanceGenerator", options());
             }
 
+            if (cmd.hasOption("server")) {
+                GeneratorServer server = new GeneratorServer(Integer.parseInt(cmd.getOptionValue("server")),
+                        threads(cmd, DEFAULT_SERVER_THREAD_AMOUNT));
+                server.start();
+                System.out.println("Listening on http://localhost:" + server.getPort() + "/generate");
+                return;
+            }
+
+            if (cmd.hasOption("convert")) {
+                Path directory = Optional.ofNullable(cmd.getOptionValue("o")).map(Paths::get).orElse(null);
+                for (String file : cmd.getOptionValues("convert")) {
+                    try {
+                        System.out.println(file + " -> " + convert(Paths.get(file), directory));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Cannot convert " + file + ": " + e.getMessage());
+                        System.exit(3);
+                    }
+                }
+                return;
+            }
+
             Configuration conf = Configuration.load(Optional.ofNullable(cmd.getOptionValue("f")).orElse(null));
 
-            Random random = new Random();
+            Overrides overrides = Overrides.from(cmd);
+
+            if (cmd.hasOption("validate") || cmd.hasOption("stats") || cmd.hasOption("diff")) {
+                InstanceInspector inspector = new InstanceInspector(threads(cmd, Runtime.getRuntime().availableProcessors()), System.out);
+                int problems = 0;
+                try {
+                    if (cmd.hasOption("validate")) {
+                        problems += inspector.validate(InstanceInspector.find(paths(cmd.getOptionValues("validate"))),
+                                new InstanceSampler(conf, overrides, null));
+                    }
+                    if (cmd.hasOption("stats")) {
+                        problems += inspector.stats(InstanceInspector.find(paths(cmd.getOptionValues("stats"))));
+                    }
+                    if (cmd.hasOption("diff")) {
+                        String [] directories = cmd.getOptionValues("diff");
+                        problems += inspector.diff(Paths.get(directories[0]), Paths.get(directories[1]));
+                    }
+                } catch (IOException e) {
+                    System.err.println("An error happened when trying to read the instances");
+                    e.printStackTrace();
+                    System.exit(2);
+                } catch (ExecutionException e) {
+                    System.err.println("An error happened when trying to read the instances");
+                    e.getCause().printStackTrace();
+                    System.exit(2);
+                }
+                // Tells apart finding invalid, unreadable or changed instances from failing
+                if (problems > 0) {
+                    System.exit(4);
+                }
+                return;
+            }
 
             int amount = Optional.ofNullable(cmd.getOptionValue("a"))
                     .map(Integer::parseInt)
                     .orElse(DEFAULT_INSTANCE_AMOUNT);
-            for (int i = 0; i < amount; i++) {
-                int nServices = Optional.ofNullable(cmd.getOptionValue("S"))
-                        .map(Integer::parseInt)
-                        .orElse(random.nextInt(conf.getMaxServiceAmount() - conf.getMinServiceAmount()) + conf.getMinServiceAmount());
-
-                Service [] services = new Service[nServices];
-                for (int s = 0; s < nServices; s++) {
-                    int demand = random.nextInt(conf.getMaxDemand() - conf.getMinDemand()) + conf.getMinDemand();
-                    int durationInKilometers = random.nextInt(conf.getMaxDurationKms() - conf.getMinDurationKms()) + conf.getMinDurationKms();
-                    int durationInMinutes = random.nextInt(conf.getMaxDurationMins().apply(durationInKilometers)
-                            - conf.getMinDurationMins().apply(durationInKilometers)) + conf.getMinDurationMins().apply(durationInKilometers);
-                    int startingTime = random.nextInt(conf.getMaxStartingTime() - conf.getMinStartingTime()) + conf.getMinStartingTime();
-                    services[s] = Service.builder()
-                            .demand(demand)
-                            .durationInKilometers(durationInKilometers)
-                            .durationInMinutes(durationInMinutes)
-                            .startingTime(startingTime)
-                            .build();
-                }
+            if (amount < 0) {
+                throw new ParseException("The amount of instances cannot be negative: " + amount);
+            }
+            int threads = threads(cmd, DEFAULT_THREAD_AMOUNT);
+            long seed = Optional.ofNullable(cmd.getOptionValue("s"))
+                    .map(Long::parseLong)
+                    .orElseGet(() -> ThreadLocalRandom.current().nextLong());
 
-                int nBuses = Optional.ofNullable(cmd.getOptionValue("B"))
-                        .map(Integer::parseInt)
-                        .orElse(random.nextInt(conf.getMaxBusAmount() - conf.getMinBusAmount()) + conf.getMinBusAmount());
-
-                Bus [] buses = new Bus[nBuses];
-                for (int b = 0; b < nBuses; b++) {
-                    int capacity = random.nextInt(conf.getMaxCapacity() - conf.getMinCapacity()) + conf.getMinCapacity();
-                    double eurosPerKilometer = conf.getMinEurosPerKm() + (conf.getMaxEurosPerKm() - conf.getMinEurosPerKm()) * random.nextDouble();
-                    double eurosPerMinutes = conf.getMinEurosPerMin() + (conf.getMaxEurosPerMin() - conf.getMinEurosPerMin()) * random.nextDouble();
-                    buses[b] = Bus.builder()
-                            .capacity(capacity)
-                            .eurosPerKilometer(eurosPerKilometer)
-                            .eurosPerMinute(eurosPerMinutes)
-                            .build();
-                }
+            // Every instance of the batch carries the same creation date, which can be pinned with
+            // SOURCE_DATE_EPOCH to make the output of two runs with the same seed byte-identical
+            Date creationDate = Optional.ofNullable(System.getenv("SOURCE_DATE_EPOCH"))
+                    .map(epoch -> new Date(Long.parseLong(epoch) * 1000))
+                    .orElseGet(Date::new);
+
+            Feasibility feasibility = cmd.hasOption("check") ? feasibility(cmd.getOptionValue("check")) : Feasibility.OFF;
+
+            Path output = Paths.get(Optional.ofNullable(cmd.getOptionValue("o")).orElse(DEFAULT_OUTPUT_DIRECTORY));
+            String sinkType = Optional.ofNullable(cmd.getOptionValue("sink")).orElse(DEFAULT_SINK);
+            // Checked now since the sinks of a sweep are only opened once their cells start
+            if (!SINKS.contains(sinkType)) {
+                throw new ParseException("Unknown sink " + sinkType);
+            }
+
+            InstanceFormat format = cmd.hasOption("format") ? format(cmd.getOptionValue("format")) : InstanceFormat.OPL;
+            if (format == InstanceFormat.BINARY && cmd.hasOption("stream")) {
+                throw new ParseException("Only the OPL format can be streamed");
+            }
 
-                int nDrivers = Optional.ofNullable(cmd.getOptionValue("D"))
-                        .map(Integer::parseInt)
-                        .orElse(random.nextInt(conf.getMaxDriverAmount() - conf.getMinDriverAmount()) + conf.getMinDriverAmount());
+            InstanceCache cache = null;
+            if (cmd.hasOption("cache")) {
+                long cacheSize = cmd.hasOption("cache-size") ? size(cmd.getOptionValue("cache-size")) : DEFAULT_CACHE_SIZE;
+                cache = new InstanceCache(Paths.get(cmd.getOptionValue("cache")), cacheSize);
+            }
 
-                Driver [] drivers = new Driver[nDrivers];
-                for (int d = 0; d < nDrivers; d++) {
-                    int maxHours = random.nextInt(conf.getMaxMaxHours() - conf.getMinMaxHours()) + conf.getMinMaxHours();
-                    drivers[d] = Driver.builder()
-                            .maxHours(maxHours)
-                            .build();
+            Sweep sweep = null;
+            if (cmd.hasOption("sweep")) {
+                try {
+                    sweep = new Sweep(Arrays.asList(cmd.getOptionValues("sweep")), Optional.ofNullable(cmd.getOptionValue("samples"))
+                            .map(Integer::parseInt)
+                            .orElse(DEFAULT_SWEEP_SAMPLES));
+                } catch (IllegalArgumentException e) {
+                    throw new ParseException("Wrong sweep: " + e.getMessage());
                 }
+            }
 
-                int maxBuses = Optional.ofNullable(cmd.getOptionValue("x"))
-                        .map(Integer::parseInt)
-                        .orElse(random.nextInt(conf.getMaxMaxBuses().apply(nBuses) - conf.getMinMaxBuses().apply(nBuses)) + conf.getMinMaxBuses().apply(nBuses));
-                int BM = Optional.ofNullable(cmd.getOptionValue("b"))
-                        .map(Integer::parseInt)
-                        .orElse(random.nextInt(conf.getMaxBaseMinutes() - conf.getMinBaseMinutes()) + conf.getMinBaseMinutes());
-                double CBM = Optional.ofNullable(cmd.getOptionValue("c"))
-                        .map(Double::parseDouble)
-                        .orElse(conf.getMaxBasePay() + (conf.getMaxBasePay() - conf.getMinBasePay()) * random.nextDouble());
-                double CEM = 0;
-                do {
-                    CEM = Optional.ofNullable(cmd.getOptionValue("e"))
-                            .map(Double::parseDouble)
-                            .orElse(conf.getMaxExtraPay() + (conf.getMaxExtraPay() - conf.getMinExtraPay()) * random.nextDouble());
-                } while (CEM < CBM);
-                Instance instance = Instance.builder()
-                        .nServices(nServices)
-                        .nBuses(nBuses)
-                        .nDrivers(nDrivers)
-                        .maxBuses(maxBuses)
-                        .BM(BM)
-                        .CBM(CBM)
-                        .CEM(CEM)
-                        .services(services)
-                        .buses(buses)
-                        .drivers(drivers)
-                        .build();
+            GenerationMetrics metrics = new GenerationMetrics(sweep == null ? amount : sweep.size() * amount);
+
+            Batch batch = Batch.builder()
+                    .seed(seed)
+                    .amount(amount)
+                    .threads(threads)
+                    .stream(cmd.hasOption("stream"))
+                    .format(format)
+                    .feasibility(feasibility)
+                    .statistics(feasibility == Feasibility.OFF ? null : output.resolve(STATISTICS_FILE))
+                    .cache(cache)
+                    .metrics(metrics)
+                    .build();
 
-                BufferedWriter writer = Files.newBufferedWriter(Paths.get("data" + i + ".dat"));
-                writer.write(instance.toString());
-                writer.close();
+            long progressSeconds = cmd.hasOption("progress") ? Long.parseLong(cmd.getOptionValue("progress")) : 0;
+            if (cmd.hasOption("progress") && progressSeconds <= 0) {
+                throw new ParseException("The progress must be printed every positive amount of seconds: " + progressSeconds);
+            }
+            Closeable progress = cmd.hasOption("progress")
+                    ? metrics.progress(progressSeconds, System.err)
+                    : () -> {};
+            boolean completed = false;
+            try {
+                if (sweep != null) {
+                    sweep(conf, overrides, sweep, creationDate, output, sinkType, batch);
+                } else {
+                    InstanceSampler sampler = new InstanceSampler(conf, overrides, creationDate);
+
+                    try (InstanceSink sink = sink(sinkType, output, amount, format, creationDate)) {
+                        generate(sampler, sink, batch);
+                    }
+                }
+                completed = true;
+            } finally {
+                // Also written when the run fails, to tell how far it got
+                progress.close();
+                metrics.finish();
+                if (cmd.hasOption("metrics")) {
+                    try {
+                        Files.write(Paths.get(cmd.getOptionValue("metrics")),
+                                metrics.toJson(completed ? "completed" : "failed").getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        if (completed) {
+                            throw e;
+                        }
+                        // The failure of the run itself is the one to report
+                        System.err.println("The metrics cannot be written: " + e.getMessage());
+                    }
+                }
+            }
+
+            if (cache != null) {
+                cache.evict();
             }
         } catch (ParseException e) {
             System.err.println("An error happened parsing command line arguments");
             e.printStackTrace();
             System.exit(1);
+        } catch (NumberFormatException e) {
+            // Before IllegalArgumentException, which it extends
+            System.err.println("A number of the command line arguments or the configuration cannot be read: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("The configuration cannot produce any instance: " + e.getMessage());
+            System.exit(3);
         } catch (IOException e) {
             System.err.println("An error happened when trying to write the instance into a file");
             e.printStackTrace();
             System.exit(2);
+        } catch (ExecutionException e) {
+            System.err.println("An error happened when trying to write the instance into a file");
+            e.getCause().printStackTrace();
+            System.exit(2);
+        } catch (InterruptedException e) {
+            System.err.println("The generation was interrupted");
+            System.exit(2);
         }
     }
 
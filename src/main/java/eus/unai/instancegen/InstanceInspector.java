@@ -0,0 +1,467 @@
+package eus.unai.instancegen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads back existing instances, in OPL or binary files, to validate them against a
+ * configuration, summarize their attributes or compare two versions of the same batch. The files
+ * are memory-mapped and read in parallel.
+ */
+public class InstanceInspector {
+
+    // Attributes summarized by stats and diff, in the order of the OPL files
+    private final static String [] ATTRIBUTES = {
+            "nServices", "nBuses", "nDrivers", "maxBuses", "BM", "CBM", "CEM",
+            "st", "sdt", "sdd", "dem", "cap", "euros_min", "euros_km", "maxHours"
+    };
+
+    private final int threads;
+    private final PrintStream out;
+
+    public InstanceInspector(int threads, PrintStream out) {
+        this.threads = threads;
+        this.out = out;
+    }
+
+    /**
+     * Finds the OPL and binary instances among the given files and, recursively, directories.
+     */
+    public static List<Path> find(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> found = Files.walk(path)) {
+                    files.addAll(found.filter(Files::isRegularFile)
+                            .filter(InstanceInspector::isInstance)
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    private static boolean isInstance(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith("." + InstanceFormat.OPL.getExtension()) || name.endsWith("." + InstanceFormat.BINARY.getExtension());
+    }
+
+    /**
+     * Reads an OPL or binary instance, depending on its extension.
+     *
+     * @throws IllegalArgumentException if the file cannot be parsed or its checksum does not match
+     */
+    public static Instance read(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith("." + InstanceFormat.BINARY.getExtension())) {
+            InstanceReader reader = InstanceReader.open(file);
+            if (!reader.verifyChecksum()) {
+                throw new IllegalArgumentException("the checksum does not match");
+            }
+            return reader.toInstance();
+        }
+        return OplParser.parse(file);
+    }
+
+    /**
+     * Prints the problems of every instance that the sampler could not have produced.
+     *
+     * @return the amount of invalid instances
+     */
+    public int validate(List<Path> files, InstanceSampler sampler) throws IOException, ExecutionException, InterruptedException {
+        List<List<String>> problems = scan(files, file -> {
+            try {
+                return sampler.validate(read(file));
+            } catch (IllegalArgumentException | IOException e) {
+                return Collections.singletonList(unreadable(e));
+            }
+        });
+        int invalid = 0;
+        for (int i = 0; i < files.size(); i++) {
+            if (!problems.get(i).isEmpty()) {
+                invalid++;
+                for (String problem : problems.get(i)) {
+                    out.println(files.get(i) + ": " + problem);
+                }
+            }
+        }
+        out.println(files.size() + " instances, " + invalid + " invalid");
+        return invalid;
+    }
+
+    /**
+     * Prints the instances that cannot be read, followed by the count, mean, standard deviation,
+     * minimum and maximum of every attribute over the rest, as CSV.
+     *
+     * @return the amount of instances that cannot be read
+     */
+    public int stats(List<Path> files) throws IOException, ExecutionException, InterruptedException {
+        List<Reading> readings = scan(files, Reading::of);
+        Summary [] summaries = newSummaries();
+        int unreadable = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Reading reading = readings.get(i);
+            if (reading.problem != null) {
+                out.println(files.get(i) + ": " + reading.problem);
+                unreadable++;
+            } else {
+                merge(summaries, reading.summaries);
+            }
+        }
+        out.println("attribute,count,mean,stddev,min,max");
+        for (int a = 0; a < ATTRIBUTES.length; a++) {
+            Summary summary = summaries[a];
+            out.println(String.format(Locale.ROOT, "%s,%d,%.4f,%.4f,%s,%s", ATTRIBUTES[a], summary.count,
+                    summary.mean, summary.standardDeviation(), number(summary.min), number(summary.max)));
+        }
+        return unreadable;
+    }
+
+    /**
+     * Compares two versions of the same instances, matched by their path relative to each
+     * directory: prints the instances missing from either side and, for those that differ, the
+     * attributes that do, followed by how the summary of every attribute drifted, as CSV. Every
+     * file is read once, both to compare it and to summarize it.
+     *
+     * @return the amount of instances that differ, are missing from either side or cannot be read
+     */
+    public int diff(Path before, Path after) throws IOException, ExecutionException, InterruptedException {
+        Map<Path, Path> beforeFiles = relative(before);
+        Map<Path, Path> afterFiles = relative(after);
+        Set<Path> names = new TreeSet<>(beforeFiles.keySet());
+        names.addAll(afterFiles.keySet());
+        List<Path> all = new ArrayList<>(names);
+
+        List<Comparison> comparisons = scan(all, name -> Comparison.of(beforeFiles.get(name), afterFiles.get(name)));
+        Summary [] beforeSummaries = newSummaries();
+        Summary [] afterSummaries = newSummaries();
+        int both = 0;
+        int changed = 0;
+        for (int i = 0; i < all.size(); i++) {
+            Path name = all.get(i);
+            Comparison comparison = comparisons.get(i);
+            boolean inBoth = beforeFiles.containsKey(name) && afterFiles.containsKey(name);
+            if (!inBoth) {
+                out.println(name + ": only in " + (beforeFiles.containsKey(name) ? before : after));
+            } else {
+                both++;
+            }
+            if (comparison.difference != null) {
+                out.println(name + ": " + comparison.difference);
+            }
+            if (!inBoth || comparison.difference != null) {
+                changed++;
+            }
+            merge(beforeSummaries, comparison.before);
+            merge(afterSummaries, comparison.after);
+        }
+        out.println(both + " instances in both, " + changed + " changed, missing or unreadable");
+
+        out.println("attribute,mean before,mean after,change,stddev before,stddev after");
+        for (int a = 0; a < ATTRIBUTES.length; a++) {
+            Summary b = beforeSummaries[a];
+            Summary c = afterSummaries[a];
+            out.println(String.format(Locale.ROOT, "%s,%.4f,%.4f,%+.2f%%,%.4f,%.4f", ATTRIBUTES[a], b.mean, c.mean,
+                    b.mean == 0 ? 0 : 100 * (c.mean - b.mean) / Math.abs(b.mean), b.standardDeviation(), c.standardDeviation()));
+        }
+        return changed;
+    }
+
+    /**
+     * The summaries of an instance, or the reason it cannot be read.
+     */
+    private static class Reading {
+
+        private final Summary [] summaries;
+        private final String problem;
+
+        private Reading(Summary [] summaries, String problem) {
+            this.summaries = summaries;
+            this.problem = problem;
+        }
+
+        static Reading of(Path file) {
+            try {
+                return new Reading(summarize(read(file)), null);
+            } catch (IllegalArgumentException | IOException e) {
+                return new Reading(null, unreadable(e));
+            }
+        }
+
+    }
+
+    /**
+     * The summaries of both versions of an instance, null for a missing or unreadable one, and
+     * how they differ, null if they hold the same instance.
+     */
+    private static class Comparison {
+
+        private Summary [] before;
+        private Summary [] after;
+        private String difference;
+
+        static Comparison of(Path beforeFile, Path afterFile) {
+            Comparison comparison = new Comparison();
+            if (beforeFile != null && afterFile != null && sameBytes(beforeFile, afterFile)) {
+                Reading reading = Reading.of(beforeFile);
+                comparison.before = reading.summaries;
+                comparison.after = reading.summaries;
+                comparison.difference = reading.problem;
+                return comparison;
+            }
+            Instance before = null;
+            Instance after = null;
+            if (beforeFile != null) {
+                try {
+                    before = read(beforeFile);
+                    comparison.before = summarize(before);
+                } catch (IllegalArgumentException | IOException e) {
+                    comparison.difference = unreadable(e);
+                }
+            }
+            if (afterFile != null) {
+                try {
+                    after = read(afterFile);
+                    comparison.after = summarize(after);
+                } catch (IllegalArgumentException | IOException e) {
+                    comparison.difference = unreadable(e);
+                }
+            }
+            if (before != null && after != null) {
+                List<String> attributes = differentAttributes(before, after);
+                // Files that only differ in their creation date or formatting hold the same instance
+                comparison.difference = attributes.isEmpty() ? null : String.join(", ", attributes);
+            }
+            return comparison;
+        }
+
+    }
+
+    private static Map<Path, Path> relative(Path directory) throws IOException {
+        Map<Path, Path> files = new TreeMap<>();
+        for (Path file : find(Collections.singletonList(directory))) {
+            files.put(directory.relativize(file), file);
+        }
+        return files;
+    }
+
+    /**
+     * Tells whether both files hold the same bytes, and false when either cannot be read, so
+     * that reading them on their own reports why.
+     */
+    private static boolean sameBytes(Path a, Path b) {
+        try (FileChannel first = FileChannel.open(a, StandardOpenOption.READ);
+             FileChannel second = FileChannel.open(b, StandardOpenOption.READ)) {
+            if (first.size() != second.size()) {
+                return false;
+            }
+            MappedByteBuffer firstBytes = first.map(FileChannel.MapMode.READ_ONLY, 0, first.size());
+            MappedByteBuffer secondBytes = second.map(FileChannel.MapMode.READ_ONLY, 0, second.size());
+            return firstBytes.equals(secondBytes);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Describes why a file cannot be read, which is reported with the file instead of stopping
+     * the scan of the rest.
+     */
+    private static String unreadable(Exception e) {
+        if (e instanceof IllegalArgumentException) {
+            return "cannot be read: " + e.getMessage();
+        }
+        return "cannot be read: " + e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage());
+    }
+
+    private static List<String> differentAttributes(Instance a, Instance b) {
+        List<String> attributes = new ArrayList<>();
+        differs(attributes, "nServices", a.getNServices() == b.getNServices());
+        differs(attributes, "nBuses", a.getNBuses() == b.getNBuses());
+        differs(attributes, "nDrivers", a.getNDrivers() == b.getNDrivers());
+        differs(attributes, "maxBuses", a.getMaxBuses() == b.getMaxBuses());
+        differs(attributes, "BM", a.getBM() == b.getBM());
+        differs(attributes, "CBM", a.getCBM() == b.getCBM());
+        differs(attributes, "CEM", a.getCEM() == b.getCEM());
+        differs(attributes, "st", Arrays.equals(a.getSt(), b.getSt()));
+        differs(attributes, "sdt", Arrays.equals(a.getSdt(), b.getSdt()));
+        differs(attributes, "sdd", Arrays.equals(a.getSdd(), b.getSdd()));
+        differs(attributes, "dem", Arrays.equals(a.getDem(), b.getDem()));
+        differs(attributes, "cap", Arrays.equals(a.getCap(), b.getCap()));
+        differs(attributes, "euros_min", Arrays.equals(a.getEurosMin(), b.getEurosMin()));
+        differs(attributes, "euros_km", Arrays.equals(a.getEurosKm(), b.getEurosKm()));
+        differs(attributes, "maxHours", Arrays.equals(a.getMaxHours(), b.getMaxHours()));
+        return attributes;
+    }
+
+    private static void differs(List<String> attributes, String name, boolean same) {
+        if (!same) {
+            attributes.add(name);
+        }
+    }
+
+    private static Summary [] newSummaries() {
+        Summary [] summaries = new Summary[ATTRIBUTES.length];
+        for (int a = 0; a < summaries.length; a++) {
+            summaries[a] = new Summary();
+        }
+        return summaries;
+    }
+
+    /**
+     * Summarizes every attribute of a single instance.
+     */
+    private static Summary [] summarize(Instance instance) {
+        Summary [] summaries = newSummaries();
+        summaries[0].add(instance.getNServices());
+        summaries[1].add(instance.getNBuses());
+        summaries[2].add(instance.getNDrivers());
+        summaries[3].add(instance.getMaxBuses());
+        summaries[4].add(instance.getBM());
+        summaries[5].add(instance.getCBM());
+        summaries[6].add(instance.getCEM());
+        summaries[7].addAll(instance.getSt());
+        summaries[8].addAll(instance.getSdt());
+        summaries[9].addAll(instance.getSdd());
+        summaries[10].addAll(instance.getDem());
+        summaries[11].addAll(instance.getCap());
+        summaries[12].addAll(instance.getEurosMin());
+        summaries[13].addAll(instance.getEurosKm());
+        summaries[14].addAll(instance.getMaxHours());
+        return summaries;
+    }
+
+    private static void merge(Summary [] total, Summary [] summaries) {
+        if (summaries != null) {
+            for (int a = 0; a < total.length; a++) {
+                total[a].merge(summaries[a]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileTask<T> {
+
+        T apply(Path file) throws IOException;
+
+    }
+
+    /**
+     * Applies the task to every file in parallel, keeping the order of the files in the results.
+     */
+    private <T> List<T> scan(List<Path> files, FileTask<T> task) throws IOException, ExecutionException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                Callable<T> callable = () -> task.apply(file);
+                futures.add(executor.submit(callable));
+            }
+            List<T> results = new ArrayList<>(files.size());
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    /**
+     * Count, mean, spread and bounds of a set of values, which can be merged in any grouping with
+     * the same result up to rounding.
+     */
+    private static class Summary {
+
+        private long count;
+        private double mean;
+        private double squares; // Sum of the squared differences from the mean
+        private double min = Double.NaN;
+        private double max = Double.NaN;
+
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            squares += delta * (value - mean);
+            min = count == 1 ? value : Math.min(min, value);
+            max = count == 1 ? value : Math.max(max, value);
+        }
+
+        void addAll(int [] values) {
+            for (int value : values) {
+                add(value);
+            }
+        }
+
+        void addAll(double [] values) {
+            for (double value : values) {
+                add(value);
+            }
+        }
+
+        void merge(Summary other) {
+            if (other.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                count = other.count;
+                mean = other.mean;
+                squares = other.squares;
+                min = other.min;
+                max = other.max;
+                return;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            squares += other.squares + delta * delta * count * other.count / total;
+            count = total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        double standardDeviation() {
+            return count < 2 ? 0 : Math.sqrt(squares / (count - 1));
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+package eus.unai.instancegen;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+/**
+ * Reads an instance in the {@link BinaryFormat binary format} without copying it: the columns
+ * are exposed as {@link IntBuffer} and {@link DoubleBuffer} views over the given buffer, which
+ * is usually a memory-mapped file.
+ */
+public class InstanceReader {
+
+    private final ByteBuffer buffer;
+    private final long [] offsets;
+
+    /**
+     * @throws IllegalArgumentException if the buffer does not hold an instance in the binary format
+     */
+    public InstanceReader(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (this.buffer.remaining() < BinaryFormat.HEADER_SIZE || this.buffer.getInt(this.buffer.position()) != BinaryFormat.MAGIC) {
+            throw new IllegalArgumentException("not a binary instance");
+        }
+        if (header(4) != BinaryFormat.VERSION) {
+            throw new IllegalArgumentException("unsupported version " + header(4) + " of the binary format");
+        }
+        offsets = BinaryFormat.offsets(getNServices(), getNBuses(), getNDrivers());
+        if (this.buffer.remaining() < offsets[8]) {
+            throw new IllegalArgumentException("the binary instance is truncated: " + this.buffer.remaining()
+                    + " bytes instead of " + offsets[8]);
+        }
+    }
+
+    public static InstanceReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new InstanceReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private int header(int offset) {
+        return buffer.getInt(buffer.position() + offset);
+    }
+
+    public int getNServices() {
+        return header(BinaryFormat.N_SERVICES);
+    }
+
+    public int getNBuses() {
+        return header(BinaryFormat.N_BUSES);
+    }
+
+    public int getNDrivers() {
+        return header(BinaryFormat.N_DRIVERS);
+    }
+
+    public int getMaxBuses() {
+        return header(BinaryFormat.MAX_BUSES);
+    }
+
+    public int getBM() {
+        return header(BinaryFormat.BM);
+    }
+
+    public double getCBM() {
+        return buffer.getDouble(buffer.position() + BinaryFormat.CBM);
+    }
+
+    public double getCEM() {
+        return buffer.getDouble(buffer.position() + BinaryFormat.CEM);
+    }
+
+    public Date getCreationDate() {
+        long millis = buffer.getLong(buffer.position() + BinaryFormat.CREATION_DATE);
+        return millis == BinaryFormat.NO_DATE ? null : new Date(millis);
+    }
+
+    public IntBuffer getSt() {
+        return column(0, 4L * getNServices()).asIntBuffer();
+    }
+
+    public IntBuffer getSdt() {
+        return column(1, 4L * getNServices()).asIntBuffer();
+    }
+
+    public IntBuffer getSdd() {
+        return column(2, 4L * getNServices()).asIntBuffer();
+    }
+
+    public IntBuffer getDem() {
+        return column(3, 4L * getNServices()).asIntBuffer();
+    }
+
+    public IntBuffer getCap() {
+        return column(4, 4L * getNBuses()).asIntBuffer();
+    }
+
+    public DoubleBuffer getEurosMin() {
+        return column(5, 8L * getNBuses()).asDoubleBuffer();
+    }
+
+    public DoubleBuffer getEurosKm() {
+        return column(6, 8L * getNBuses()).asDoubleBuffer();
+    }
+
+    public IntBuffer getMaxHours() {
+        return column(7, 4L * getNDrivers()).asIntBuffer();
+    }
+
+    private ByteBuffer column(int column, long size) {
+        ByteBuffer view = buffer.duplicate();
+        int start = buffer.position() + (int) offsets[column];
+        // Through Buffer, whose methods ByteBuffer only overrides from Java 9 on
+        ((Buffer) view).limit(start + (int) size).position(start);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Checks the columns against the checksum of the header, which reads the whole instance.
+     */
+    public boolean verifyChecksum() {
+        ByteBuffer body = buffer.duplicate();
+        ((Buffer) body).limit(buffer.position() + (int) offsets[8]).position(buffer.position() + BinaryFormat.HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return crc.getValue() == buffer.getLong(buffer.position() + BinaryFormat.CHECKSUM);
+    }
+
+    /**
+     * Copies the instance into memory.
+     */
+    public Instance toInstance() {
+        return Instance.builder()
+                .creationDate(getCreationDate())
+                .nServices(getNServices())
+                .nBuses(getNBuses())
+                .nDrivers(getNDrivers())
+                .maxBuses(getMaxBuses())
+                .BM(getBM())
+                .CBM(getCBM())
+                .CEM(getCEM())
+                .st(toArray(getSt()))
+                .sdt(toArray(getSdt()))
+                .sdd(toArray(getSdd()))
+                .dem(toArray(getDem()))
+                .cap(toArray(getCap()))
+                .eurosMin(toArray(getEurosMin()))
+                .eurosKm(toArray(getEurosKm()))
+                .maxHours(toArray(getMaxHours()))
+                .build();
+    }
+
+    private static int [] toArray(IntBuffer buffer) {
+        int [] array = new int[buffer.remaining()];
+        buffer.get(array);
+        return array;
+    }
+
+    private static double [] toArray(DoubleBuffer buffer) {
+        double [] array = new double[buffer.remaining()];
+        buffer.get(array);
+        return array;
+    }
+
+}
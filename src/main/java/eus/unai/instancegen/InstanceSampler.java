@@ -0,0 +1,593 @@
+package eus.unai.instancegen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Samples instances from a {@link Configuration}. Every instance is drawn from its own
+ * {@link SplittableRandom}, so the result only depends on the seed it is given and not on
+ * the thread it runs on or the instances generated before it. Within an instance, each column
+ * has a stream of its own, which lets huge instances be written column by column in constant
+ * memory with {@link #stream(long, InstanceWriter)}.
+ */
+public class InstanceSampler {
+
+    private final static long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final static int ST = 0;
+    private final static int SDT = 1;
+    private final static int SDD = 2;
+    private final static int DEM = 3;
+    private final static int CAP = 4;
+    private final static int EUROS_MIN = 5;
+    private final static int EUROS_KM = 6;
+    private final static int MAX_HOURS = 7;
+    private final static int ROUTES = 8;
+
+    // Domains of the seeds derived for anything else than the columns, negative so that they
+    // never match a column, and below -1, which would mix the seed without offsetting it
+    private final static int RETRIES = -2;
+    final static int CELLS = -3;
+    final static int HYPERCUBE = -4;
+
+    // The OPL files round the decimals to two digits
+    private final static double DECIMAL_TOLERANCE = 0.005;
+
+    private final Configuration conf;
+    private final Overrides overrides;
+    private final Date creationDate;
+
+    private final IntRange services;
+    private final IntRange buses;
+    private final IntRange drivers;
+    private final IntRange baseMinutes;
+    private final DoubleRange basePay;
+    private final double maxExtraPay;
+    private final double minExtraPay;
+
+    private final IntSampler startingTime;
+    private final IntSampler durationKms;
+    private final IntSampler demand;
+    private final IntSampler capacity;
+    private final DoubleSampler eurosPerMin;
+    private final DoubleSampler eurosPerKm;
+    private final IntSampler maxHours;
+
+    private final IntRange routes;
+    private final IntRange startingTimes;
+    private final IntRange demands;
+    private final double [] demandProfile;
+
+    /**
+     * @throws IllegalArgumentException if the configuration and the overrides cannot produce any
+     * instance, e.g. because a range is empty or the extra pay can never reach the base pay
+     */
+    public InstanceSampler(Configuration conf, Overrides overrides, Date creationDate) {
+        this.conf = conf;
+        this.overrides = overrides;
+        this.creationDate = creationDate;
+
+        // Negative sizes would only fail once an instance allocates its columns
+        checkNotNegative("services", overrides.getServices());
+        checkNotNegative("buses", overrides.getBuses());
+        checkNotNegative("drivers", overrides.getDrivers());
+        checkNotNegative("maxBuses", overrides.getMaxBuses());
+        checkNotNegative("baseMinutes", overrides.getBaseMinutes());
+
+        services = IntRange.of("services", conf.getMinServiceAmount(), conf.getMaxServiceAmount());
+        buses = IntRange.of("buses", conf.getMinBusAmount(), conf.getMaxBusAmount());
+        drivers = IntRange.of("drivers", conf.getMinDriverAmount(), conf.getMaxDriverAmount());
+        baseMinutes = IntRange.of("base minutes", conf.getMinBaseMinutes(), conf.getMaxBaseMinutes());
+        DoubleRange.of("maximum buses proportion", conf.getMinMaxBusesProportion(), conf.getMaxMaxBusesProportion());
+        DoubleRange.of("duration in minutes proportion", conf.getMinDurationMinsProportion(), conf.getMaxDurationMinsProportion());
+
+        // CEM must not be lower than CBM, so CBM is drawn below the highest CEM and CEM above the drawn CBM
+        DoubleRange extraPay = Optional.ofNullable(overrides.getExtraPay())
+                .map(pay -> DoubleRange.of("extra pay", pay, pay))
+                .orElseGet(() -> DoubleRange.of("extra pay", conf.getMinExtraPay(), conf.getMaxExtraPay()));
+        minExtraPay = extraPay.getMin();
+        maxExtraPay = extraPay.getMax();
+        double minBasePay = Optional.ofNullable(overrides.getBasePay()).orElse(conf.getMinBasePay());
+        if (minBasePay > maxExtraPay) {
+            throw new IllegalArgumentException("the extra pay, at most " + maxExtraPay
+                    + ", can never reach the base pay, at least " + minBasePay);
+        }
+        basePay = Optional.ofNullable(overrides.getBasePay())
+                .map(pay -> DoubleRange.of("base pay", pay, pay))
+                .orElseGet(() -> DoubleRange.of("base pay", minBasePay, Math.min(conf.getMaxBasePay(), maxExtraPay)));
+
+        startingTimes = IntRange.of("starting time", conf.getMinStartingTime(), conf.getMaxStartingTime());
+        startingTime = sampler(startingTimes, conf.getStartingTimeDistribution());
+        durationKms = sampler(IntRange.of("duration in kilometers", conf.getMinDurationKms(), conf.getMaxDurationKms()),
+                conf.getDurationKmsDistribution());
+        demands = IntRange.of("demand", conf.getMinDemand(), conf.getMaxDemand());
+        demand = sampler(demands, conf.getDemandDistribution());
+        capacity = sampler(IntRange.of("capacity", conf.getMinCapacity(), conf.getMaxCapacity()),
+                conf.getCapacityDistribution());
+        eurosPerMin = sampler(DoubleRange.of("euros per minute", conf.getMinEurosPerMin(), conf.getMaxEurosPerMin()),
+                conf.getEurosPerMinDistribution());
+        eurosPerKm = sampler(DoubleRange.of("euros per kilometer", conf.getMinEurosPerKm(), conf.getMaxEurosPerKm()),
+                conf.getEurosPerKmDistribution());
+        maxHours = sampler(IntRange.of("maximum hours", conf.getMinMaxHours(), conf.getMaxMaxHours()),
+                conf.getMaxHoursDistribution());
+
+        routes = Optional.ofNullable(overrides.getRoutes())
+                .map(amount -> IntRange.of("routes", amount, amount))
+                .orElseGet(() -> IntRange.of("routes", conf.getMinRouteAmount(), conf.getMaxRouteAmount()));
+        if (routes.getMin() < 0) {
+            throw new IllegalArgumentException("the amount of routes cannot be negative: " + routes.getMin());
+        }
+        demandProfile = demandProfile(conf, startingTimes);
+        if (routes.getMax() > 0) {
+            Timetable.baseDemands(demands, demandProfile);
+        }
+    }
+
+    private static void checkNotNegative(String override, Integer value) {
+        if (value != null && value < 0) {
+            throw new IllegalArgumentException("the " + override + " override cannot be negative: " + value);
+        }
+    }
+
+    /**
+     * Demand factor of the trips starting at every minute of the range of starting times: one,
+     * rising up to the peak demand factor around the peaks.
+     */
+    private static double [] demandProfile(Configuration conf, IntRange startingTimes) {
+        double [] profile = new double[startingTimes.getMax() - startingTimes.getMin() + 1];
+        for (int i = 0; i < profile.length; i++) {
+            double closeness = 0;
+            for (int peak : conf.getDemandPeaks()) {
+                double distance = (startingTimes.getMin() + i - peak) / (double) Math.max(conf.getPeakWidth(), 1);
+                closeness = Math.max(closeness, Math.exp(-distance * distance));
+            }
+            profile[i] = 1 + (conf.getPeakDemandFactor() - 1) * closeness;
+        }
+        return profile;
+    }
+
+    /**
+     * Checks that the instance could have been sampled with this configuration and overrides: the
+     * length of every column and the range of every value.
+     *
+     * @return the problems found, at most one per column, empty if there are none
+     */
+    public List<String> validate(Instance instance) {
+        List<String> problems = new ArrayList<>();
+        int nServices = instance.getNServices();
+        int nBuses = instance.getNBuses();
+        int nDrivers = instance.getNDrivers();
+        checkAmount(problems, "nServices", nServices, overrides.getServices(), services);
+        checkAmount(problems, "nBuses", nBuses, overrides.getBuses(), buses);
+        checkAmount(problems, "nDrivers", nDrivers, overrides.getDrivers(), drivers);
+        if (nBuses >= 0) {
+            checkAmount(problems, "maxBuses", instance.getMaxBuses(), overrides.getMaxBuses(),
+                    IntRange.of("maximum buses", conf.getMinMaxBuses().applyAsInt(nBuses),
+                            Math.max(conf.getMinMaxBuses().applyAsInt(nBuses), conf.getMaxMaxBuses().applyAsInt(nBuses))));
+        }
+        checkAmount(problems, "BM", instance.getBM(), overrides.getBaseMinutes(), baseMinutes);
+        if (!basePay.contains(instance.getCBM(), DECIMAL_TOLERANCE)) {
+            problems.add("CBM = " + instance.getCBM() + " is out of " + basePay);
+        }
+        DoubleRange extraPay = DoubleRange.of("extra pay", Math.min(Math.max(minExtraPay, instance.getCBM()), maxExtraPay), maxExtraPay);
+        if (!extraPay.contains(instance.getCEM(), DECIMAL_TOLERANCE)) {
+            problems.add("CEM = " + instance.getCEM() + " is out of " + extraPay + ", which starts at CBM");
+        }
+
+        IntRange durationKms = IntRange.of("duration in kilometers", conf.getMinDurationKms(), conf.getMaxDurationKms());
+        if (checkLength(problems, "st", instance.getSt().length, nServices)) {
+            checkColumn(problems, "st", instance.getSt(), startingTimes);
+        }
+        if (checkLength(problems, "sdd", instance.getSdd().length, nServices)) {
+            checkColumn(problems, "sdd", instance.getSdd(), durationKms);
+        }
+        if (checkLength(problems, "sdt", instance.getSdt().length, nServices) && instance.getSdd().length == nServices) {
+            int [] sdt = instance.getSdt();
+            int [] sdd = instance.getSdd();
+            for (int s = 0; s < sdt.length; s++) {
+                int min = conf.getMinDurationMins().applyAsInt(sdd[s]);
+                IntRange range = IntRange.of("duration in minutes", min, Math.max(min, conf.getMaxDurationMins().applyAsInt(sdd[s])));
+                if (!range.contains(sdt[s])) {
+                    problems.add("sdt[" + s + "] = " + sdt[s] + " is out of " + range + " for sdd[" + s + "] = " + sdd[s]);
+                    break;
+                }
+            }
+        }
+        if (checkLength(problems, "dem", instance.getDem().length, nServices)) {
+            checkColumn(problems, "dem", instance.getDem(), demands);
+        }
+        if (checkLength(problems, "cap", instance.getCap().length, nBuses)) {
+            checkColumn(problems, "cap", instance.getCap(), IntRange.of("capacity", conf.getMinCapacity(), conf.getMaxCapacity()));
+        }
+        if (checkLength(problems, "euros_min", instance.getEurosMin().length, nBuses)) {
+            checkColumn(problems, "euros_min", instance.getEurosMin(),
+                    DoubleRange.of("euros per minute", conf.getMinEurosPerMin(), conf.getMaxEurosPerMin()));
+        }
+        if (checkLength(problems, "euros_km", instance.getEurosKm().length, nBuses)) {
+            checkColumn(problems, "euros_km", instance.getEurosKm(),
+                    DoubleRange.of("euros per kilometer", conf.getMinEurosPerKm(), conf.getMaxEurosPerKm()));
+        }
+        if (checkLength(problems, "maxHours", instance.getMaxHours().length, nDrivers)) {
+            checkColumn(problems, "maxHours", instance.getMaxHours(), IntRange.of("maximum hours", conf.getMinMaxHours(), conf.getMaxMaxHours()));
+        }
+        return problems;
+    }
+
+    private static void checkAmount(List<String> problems, String name, int value, Integer override, IntRange range) {
+        if (override != null ? value != override : !range.contains(value)) {
+            problems.add(name + " = " + value + " is out of " + (override != null ? String.valueOf(override) : range.toString()));
+        }
+    }
+
+    private static boolean checkLength(List<String> problems, String name, int length, int expected) {
+        if (length != expected) {
+            problems.add(name + " has " + length + " values instead of " + expected);
+            return false;
+        }
+        return true;
+    }
+
+    private static void checkColumn(List<String> problems, String name, int [] values, IntRange range) {
+        for (int i = 0; i < values.length; i++) {
+            if (!range.contains(values[i])) {
+                problems.add(name + "[" + i + "] = " + values[i] + " is out of " + range);
+                return;
+            }
+        }
+    }
+
+    private static void checkColumn(List<String> problems, String name, double [] values, DoubleRange range) {
+        for (int i = 0; i < values.length; i++) {
+            if (!range.contains(values[i], DECIMAL_TOLERANCE)) {
+                problems.add(name + "[" + i + "] = " + values[i] + " is out of " + range);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Describes everything the sampled instances depend on but their seed and creation date.
+     */
+    public String describe() {
+        return conf.describe() + overrides + "\n";
+    }
+
+    private static IntSampler sampler(IntRange range, Distribution distribution) {
+        return distribution == null ? range : range.with(distribution);
+    }
+
+    private static DoubleSampler sampler(DoubleRange range, Distribution distribution) {
+        return distribution == null ? range : range.with(distribution);
+    }
+
+    /**
+     * Derives the seed of the instance with the given index from the master seed, mixing it
+     * with the SplitMix64 finalizer so that consecutive indices get unrelated streams.
+     */
+    public static long seedFor(long masterSeed, int index) {
+        long z = masterSeed + (index + 1L) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derives the seed with the given index within a domain of its own, so that it never matches
+     * the seeds derived straight from the master seed.
+     */
+    static long seedFor(long masterSeed, int domain, int index) {
+        return seedFor(seedFor(masterSeed, domain), index);
+    }
+
+    /**
+     * Derives the seed the instance is sampled again with after being rejected for the given
+     * attempt, from its own domain so that it never matches the seed of one of its columns.
+     */
+    public static long retrySeed(long instanceSeed, int attempt) {
+        return seedFor(instanceSeed, RETRIES, attempt);
+    }
+
+    /**
+     * Samples the whole instance in memory.
+     */
+    public Instance sample(long seed) {
+        Instance header = sampleHeader(seed);
+        int [] st = new int[header.getNServices()];
+        int [] sdt = new int[header.getNServices()];
+        int [] sdd = new int[header.getNServices()];
+        int [] dem = new int[header.getNServices()];
+        fillServices(seed, st, sdt, sdd, dem);
+        int [] cap = new int[header.getNBuses()];
+        double [] eurosMin = new double[header.getNBuses()];
+        double [] eurosKm = new double[header.getNBuses()];
+        fillBuses(seed, cap, eurosMin, eurosKm);
+        int [] maxHours = new int[header.getNDrivers()];
+        fillDrivers(seed, maxHours);
+        return header.toBuilder()
+                .st(st)
+                .sdt(sdt)
+                .sdd(sdd)
+                .dem(dem)
+                .cap(cap)
+                .eurosMin(eurosMin)
+                .eurosKm(eurosKm)
+                .maxHours(maxHours)
+                .build();
+    }
+
+    /**
+     * Samples the instance straight into the writer, one column after the other, keeping only
+     * the generators of the columns in memory. The output is the same as writing
+     * {@link #sample(long)} with {@link InstanceWriter#write(Instance)}.
+     */
+    public void stream(long seed, InstanceWriter writer) throws IOException {
+        stream(seed, sampleHeader(seed), writer, null);
+    }
+
+    /**
+     * Streams the instance as {@link #stream(long, InstanceWriter)} does and gathers its
+     * statistics on the way, which only replays its starting times and durations in minutes
+     * instead of every column as {@link #statistics(long)} does.
+     */
+    public InstanceStatistics streamWithStatistics(long seed, InstanceWriter writer) throws IOException {
+        Instance header = sampleHeader(seed);
+        InstanceStatistics.Collector collector = collector(header);
+        stream(seed, header, writer, collector);
+        return collector.finish();
+    }
+
+    private void stream(long seed, Instance header, InstanceWriter writer, InstanceStatistics.Collector collector) throws IOException {
+        Timetable timetable = timetable(seed, header.getNServices());
+        IntSupplier demands = demands(seed, timetable);
+        IntSupplier capacities = capacities(seed);
+        IntSupplier maxHours = maxHours(seed);
+        if (collector != null) {
+            IntSupplier sampledDemands = demands;
+            IntSupplier startingTimes = startingTimes(seed, timetable);
+            IntSupplier durationsInMinutes = durationsInMinutes(seed, timetable);
+            demands = () -> {
+                int demand = sampledDemands.getAsInt();
+                collector.service(startingTimes.getAsInt(), durationsInMinutes.getAsInt(), demand);
+                return demand;
+            };
+            IntSupplier sampledCapacities = capacities;
+            capacities = () -> {
+                int capacity = sampledCapacities.getAsInt();
+                collector.bus(capacity);
+                return capacity;
+            };
+            IntSupplier sampledMaxHours = maxHours;
+            maxHours = () -> {
+                int hours = sampledMaxHours.getAsInt();
+                collector.driver(hours);
+                return hours;
+            };
+        }
+        writer.writeHeader(header);
+        writer.writeInts("st", header.getNServices(), startingTimes(seed, timetable));
+        writer.writeInts("sdt", header.getNServices(), durationsInMinutes(seed, timetable));
+        writer.writeInts("sdd", header.getNServices(), durationsInKilometers(seed, timetable));
+        writer.writeInts("dem", header.getNServices(), demands);
+        writer.writeLine();
+        writer.writeInts("cap", header.getNBuses(), capacities);
+        writer.writeDecimals("euros_min", header.getNBuses(), eurosPerMinute(seed));
+        writer.writeDecimals("euros_km", header.getNBuses(), eurosPerKilometer(seed));
+        writer.writeLine();
+        writer.writeInts("maxHours", header.getNDrivers(), maxHours);
+    }
+
+    /**
+     * Computes the statistics of an instance sampled in memory, in a single pass over its rows.
+     */
+    public InstanceStatistics statistics(Instance instance) {
+        InstanceStatistics.Collector collector = collector(instance);
+        int [] st = instance.getSt();
+        int [] sdt = instance.getSdt();
+        int [] dem = instance.getDem();
+        for (int s = 0; s < st.length; s++) {
+            collector.service(st[s], sdt[s], dem[s]);
+        }
+        for (int capacity : instance.getCap()) {
+            collector.bus(capacity);
+        }
+        for (int hours : instance.getMaxHours()) {
+            collector.driver(hours);
+        }
+        return collector.finish();
+    }
+
+    /**
+     * Computes the statistics of the instance with the given seed replaying its columns, so that
+     * it is never held in memory. They are the same as those of {@link #sample(long)}.
+     */
+    public InstanceStatistics statistics(long seed) {
+        Instance header = sampleHeader(seed);
+        InstanceStatistics.Collector collector = collector(header);
+        Timetable timetable = timetable(seed, header.getNServices());
+        IntSupplier startingTimes = startingTimes(seed, timetable);
+        IntSupplier durationsInMinutes = durationsInMinutes(seed, timetable);
+        IntSupplier demands = demands(seed, timetable);
+        for (int s = 0; s < header.getNServices(); s++) {
+            collector.service(startingTimes.getAsInt(), durationsInMinutes.getAsInt(), demands.getAsInt());
+        }
+        IntSupplier capacities = capacities(seed);
+        for (int b = 0; b < header.getNBuses(); b++) {
+            collector.bus(capacities.getAsInt());
+        }
+        IntSupplier maxHours = maxHours(seed);
+        for (int d = 0; d < header.getNDrivers(); d++) {
+            collector.driver(maxHours.getAsInt());
+        }
+        return collector.finish();
+    }
+
+    private InstanceStatistics.Collector collector(Instance header) {
+        // Every sampled value is kept within its configured range, which bounds the counting arrays
+        int maxDuration = Math.max(conf.getMaxDurationMins().applyAsInt(conf.getMaxDurationKms()), 0);
+        return new InstanceStatistics.Collector(header,
+                conf.getMinStartingTime(), conf.getMaxStartingTime() + maxDuration,
+                conf.getMinCapacity(), conf.getMaxCapacity(),
+                conf.getMinMaxHours(), conf.getMaxMaxHours());
+    }
+
+    /**
+     * Samples the sizes and scalar parameters of the instance, leaving its columns empty.
+     */
+    Instance sampleHeader(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int nServices = Optional.ofNullable(overrides.getServices()).orElseGet(() -> services.sample(random));
+        int nBuses = Optional.ofNullable(overrides.getBuses()).orElseGet(() -> buses.sample(random));
+        int nDrivers = Optional.ofNullable(overrides.getDrivers()).orElseGet(() -> drivers.sample(random));
+        int maxBuses = Optional.ofNullable(overrides.getMaxBuses())
+                .orElseGet(() -> IntRange.of("maximum buses", conf.getMinMaxBuses().applyAsInt(nBuses), conf.getMaxMaxBuses().applyAsInt(nBuses))
+                        .sample(random));
+        int BM = Optional.ofNullable(overrides.getBaseMinutes()).orElseGet(() -> baseMinutes.sample(random));
+        double CBM = basePay.sample(random);
+        // Uniform over the extra pays not lower than CBM, the same distribution a rejection loop would give
+        double CEM = DoubleRange.of("extra pay", Math.max(minExtraPay, CBM), maxExtraPay).sample(random);
+        return Instance.builder()
+                .creationDate(creationDate)
+                .nServices(nServices)
+                .nBuses(nBuses)
+                .nDrivers(nDrivers)
+                .maxBuses(maxBuses)
+                .BM(BM)
+                .CBM(CBM)
+                .CEM(CEM)
+                .build();
+    }
+
+    // Every column is drawn from its own stream, derived from the instance seed, so that it can be
+    // generated, and replayed, independently of the others
+
+    private SplittableRandom column(long seed, int column) {
+        return new SplittableRandom(seedFor(seed, column));
+    }
+
+    /**
+     * Samples the routes the services of the instance are trips of, from their own stream, or
+     * returns null if its services are independent.
+     */
+    Timetable timetable(long seed, int services) {
+        SplittableRandom random = column(seed, ROUTES);
+        int amount = routes.sample(random);
+        if (amount == 0) {
+            return null;
+        }
+        return Timetable.sample(random, services, amount, startingTimes, durationKms,
+                conf.getMinDurationMins(), conf.getMaxDurationMins(), demand, demands, demandProfile);
+    }
+
+    /**
+     * Samples the routes of the instance with the given seed, for the suppliers of its services.
+     */
+    Timetable timetable(long seed) {
+        if (routes.getMax() == 0) {
+            return null;
+        }
+        return timetable(seed, sampleHeader(seed).getNServices());
+    }
+
+    // The suppliers of the services take the timetable of the instance, sampled once for all of
+    // them, or null if its services are independent
+
+    IntSupplier startingTimes(long seed, Timetable timetable) {
+        if (timetable != null) {
+            return timetable.startingTimes();
+        }
+        SplittableRandom random = column(seed, ST);
+        return () -> startingTime.sample(random);
+    }
+
+    IntSupplier durationsInKilometers(long seed, Timetable timetable) {
+        if (timetable != null) {
+            return timetable.durationsInKilometers();
+        }
+        SplittableRandom random = column(seed, SDD);
+        return () -> durationKms.sample(random);
+    }
+
+    IntSupplier durationsInMinutes(long seed, Timetable timetable) {
+        if (timetable != null) {
+            return timetable.durationsInMinutes();
+        }
+        // The bounds of the duration in minutes depend on the duration in kilometers, which is replayed
+        IntSupplier durationsInKilometers = durationsInKilometers(seed, null);
+        SplittableRandom random = column(seed, SDT);
+        IntUnaryOperator minDurationMins = conf.getMinDurationMins();
+        IntUnaryOperator maxDurationMins = conf.getMaxDurationMins();
+        return () -> {
+            int durationInKilometers = durationsInKilometers.getAsInt();
+            int min = minDurationMins.applyAsInt(durationInKilometers);
+            int span = maxDurationMins.applyAsInt(durationInKilometers) - min;
+            return span == 0 ? min : min + BulkRandom.nextInt(random, span);
+        };
+    }
+
+    IntSupplier demands(long seed, Timetable timetable) {
+        if (timetable != null) {
+            return timetable.demands();
+        }
+        SplittableRandom random = column(seed, DEM);
+        return () -> demand.sample(random);
+    }
+
+    IntSupplier capacities(long seed) {
+        SplittableRandom random = column(seed, CAP);
+        return () -> capacity.sample(random);
+    }
+
+    DoubleSupplier eurosPerMinute(long seed) {
+        SplittableRandom random = column(seed, EUROS_MIN);
+        return () -> eurosPerMin.sample(random);
+    }
+
+    DoubleSupplier eurosPerKilometer(long seed) {
+        SplittableRandom random = column(seed, EUROS_KM);
+        return () -> eurosPerKm.sample(random);
+    }
+
+    IntSupplier maxHours(long seed) {
+        SplittableRandom random = column(seed, MAX_HOURS);
+        return () -> maxHours.sample(random);
+    }
+
+    // The same columns filled at once, which draws exactly the values of the suppliers above
+
+    void fillServices(long seed, int [] st, int [] sdt, int [] sdd, int [] dem) {
+        Timetable timetable = timetable(seed, st.length);
+        if (timetable != null) {
+            timetable.fill(st, sdt, sdd, dem);
+            return;
+        }
+        startingTime.fill(column(seed, ST), st);
+        durationKms.fill(column(seed, SDD), sdd);
+        SplittableRandom random = column(seed, SDT);
+        IntUnaryOperator minDurationMins = conf.getMinDurationMins();
+        IntUnaryOperator maxDurationMins = conf.getMaxDurationMins();
+        for (int s = 0; s < sdt.length; s++) {
+            int min = minDurationMins.applyAsInt(sdd[s]);
+            int span = maxDurationMins.applyAsInt(sdd[s]) - min;
+            sdt[s] = span == 0 ? min : min + BulkRandom.nextInt(random, span);
+        }
+        demand.fill(column(seed, DEM), dem);
+    }
+
+    void fillBuses(long seed, int [] cap, double [] eurosMin, double [] eurosKm) {
+        capacity.fill(column(seed, CAP), cap);
+        eurosPerMin.fill(column(seed, EUROS_MIN), eurosMin);
+        eurosPerKm.fill(column(seed, EUROS_KM), eurosKm);
+    }
+
+    void fillDrivers(long seed, int [] maxHours) {
+        this.maxHours.fill(column(seed, MAX_HOURS), maxHours);
+    }
+
+}
@@ -0,0 +1,44 @@
+package eus.unai.instancegen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Destination of the generated instances. Sinks can be written from several threads at once.
+ */
+public interface InstanceSink extends Closeable {
+
+    void write(int index, Content content) throws IOException;
+
+    /**
+     * Writes an instance that is already in the given file, which sinks that can share it, like
+     * {@link FileSink}, do without copying it.
+     */
+    default void write(int index, Path file) throws IOException {
+        write(index, channel -> {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position, channel);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes an instance, either already sampled or sampled on the fly, into the given channel
+     * without closing it.
+     */
+    @FunctionalInterface
+    interface Content {
+
+        void writeTo(WritableByteChannel channel) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,202 @@
+package eus.unai.instancegen;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of an instance together with necessary conditions for it to be feasible. An instance
+ * that breaks any of them has no solution, but passing them all does not guarantee that it has one.
+ */
+@Value
+@Builder
+public class InstanceStatistics {
+
+    // Highest amount of services running at the same minute, and the sum of their demands
+    private int peakConcurrentServices;
+    private long peakConcurrentDemand;
+
+    private long totalDemand;
+    private int maxDemand;
+    private long totalServiceMinutes;
+    private long totalDriverMinutes;
+
+    private int minCapacity;
+    private int p25Capacity;
+    private int medianCapacity;
+    private int p75Capacity;
+    private int maxCapacity;
+    // Sum of the capacities of the maxBuses largest buses
+    private long usableCapacity;
+
+    // Fewest drivers that can work the service minutes and the concurrent services
+    private int driversLowerBound;
+
+    // Why the instance is infeasible, null if no condition is broken
+    private String infeasibility;
+
+    public boolean isFeasible() {
+        return infeasibility == null;
+    }
+
+    public static String csvHeader() {
+        return "peakConcurrentServices,peakConcurrentDemand,totalDemand,maxDemand,totalServiceMinutes,totalDriverMinutes,"
+                + "minCapacity,p25Capacity,medianCapacity,p75Capacity,maxCapacity,usableCapacity,driversLowerBound,feasible,infeasibility";
+    }
+
+    public String toCsv() {
+        return peakConcurrentServices + "," + peakConcurrentDemand + "," + totalDemand + "," + maxDemand + ","
+                + totalServiceMinutes + "," + totalDriverMinutes + ","
+                + minCapacity + "," + p25Capacity + "," + medianCapacity + "," + p75Capacity + "," + maxCapacity + ","
+                + usableCapacity + "," + driversLowerBound + "," + isFeasible() + "," + (isFeasible() ? "" : "\"" + infeasibility + "\"");
+    }
+
+    /**
+     * Gathers the statistics in a single pass over the services, buses and drivers, in any order.
+     * Times, capacities and hours are counted in arrays spanning their configured ranges instead
+     * of being sorted, so the memory used does not depend on the size of the instance.
+     */
+    public static class Collector {
+
+        private final Instance header;
+
+        private final int minTime;
+        private final int [] startingServices;
+        private final long [] startingDemand;
+
+        private final int minCapacityValue;
+        private final int [] capacities;
+
+        private final int minHoursValue;
+        private final int [] hours;
+
+        private long totalDemand;
+        private int maxDemand;
+        private long totalServiceMinutes;
+
+        Collector(Instance header, int minTime, int maxTime, int minCapacity, int maxCapacity, int minHours, int maxHours) {
+            this.header = header;
+            this.minTime = minTime;
+            this.startingServices = new int[maxTime - minTime + 2];
+            this.startingDemand = new long[maxTime - minTime + 2];
+            this.minCapacityValue = minCapacity;
+            this.capacities = new int[maxCapacity - minCapacity + 1];
+            this.minHoursValue = minHours;
+            this.hours = new int[maxHours - minHours + 1];
+        }
+
+        public void service(int startingTime, int durationInMinutes, int demand) {
+            // Services run in [start, start + duration), which is added to the differences of the sweep
+            int start = startingTime - minTime;
+            int end = start + durationInMinutes;
+            startingServices[start]++;
+            startingServices[end]--;
+            startingDemand[start] += demand;
+            startingDemand[end] -= demand;
+            totalDemand += demand;
+            maxDemand = Math.max(maxDemand, demand);
+            totalServiceMinutes += durationInMinutes;
+        }
+
+        public void bus(int capacity) {
+            capacities[capacity - minCapacityValue]++;
+        }
+
+        public void driver(int maxHours) {
+            hours[maxHours - minHoursValue]++;
+        }
+
+        public InstanceStatistics finish() {
+            int running = 0;
+            long demand = 0;
+            int peakServices = 0;
+            long peakDemand = 0;
+            for (int t = 0; t < startingServices.length; t++) {
+                running += startingServices[t];
+                demand += startingDemand[t];
+                peakServices = Math.max(peakServices, running);
+                peakDemand = Math.max(peakDemand, demand);
+            }
+
+            int nBuses = header.getNBuses();
+            int usableBuses = Math.min(header.getMaxBuses(), nBuses);
+            long usableCapacity = 0;
+            int largest = 0;
+            for (int c = capacities.length - 1; c >= 0 && largest < usableBuses; c--) {
+                int taken = Math.min(capacities[c], usableBuses - largest);
+                usableCapacity += (long) taken * (c + minCapacityValue);
+                largest += taken;
+            }
+
+            long totalDriverMinutes = 0;
+            for (int h = 0; h < hours.length; h++) {
+                totalDriverMinutes += 60L * hours[h] * (h + minHoursValue);
+            }
+            // Taking the drivers with the most hours first gives the fewest that can cover the minutes
+            int driversForMinutes = 0;
+            long covered = 0;
+            for (int h = hours.length - 1; h >= 0 && covered < totalServiceMinutes; h--) {
+                long minutes = 60L * (h + minHoursValue);
+                long needed = minutes <= 0 ? hours[h] : Math.min(hours[h], (totalServiceMinutes - covered + minutes - 1) / minutes);
+                driversForMinutes += needed;
+                covered += needed * minutes;
+            }
+            int driversLowerBound = Math.max(peakServices, driversForMinutes);
+
+            List<String> reasons = new ArrayList<>();
+            if (totalDriverMinutes < totalServiceMinutes) {
+                reasons.add("the drivers can work " + totalDriverMinutes + " minutes but the services last " + totalServiceMinutes);
+            } else if (driversLowerBound > header.getNDrivers()) {
+                reasons.add("at least " + driversLowerBound + " drivers are needed but there are " + header.getNDrivers());
+            }
+            if (peakServices > usableBuses) {
+                reasons.add(peakServices + " services run at once but only " + usableBuses + " buses can be used");
+            }
+            int maxCapacity = percentile(1);
+            if (header.getNServices() > 0 && (nBuses == 0 || maxDemand > maxCapacity)) {
+                reasons.add("a demand of " + maxDemand + " fits no bus");
+            }
+            if (peakDemand > usableCapacity) {
+                reasons.add("the concurrent demand reaches " + peakDemand + " but the largest usable buses carry " + usableCapacity);
+            }
+
+            return InstanceStatistics.builder()
+                    .peakConcurrentServices(peakServices)
+                    .peakConcurrentDemand(peakDemand)
+                    .totalDemand(totalDemand)
+                    .maxDemand(maxDemand)
+                    .totalServiceMinutes(totalServiceMinutes)
+                    .totalDriverMinutes(totalDriverMinutes)
+                    .minCapacity(percentile(0))
+                    .p25Capacity(percentile(0.25))
+                    .medianCapacity(percentile(0.5))
+                    .p75Capacity(percentile(0.75))
+                    .maxCapacity(maxCapacity)
+                    .usableCapacity(usableCapacity)
+                    .driversLowerBound(driversLowerBound)
+                    .infeasibility(reasons.isEmpty() ? null : String.join("; ", reasons))
+                    .build();
+        }
+
+        // Nearest-rank percentile of the capacities, 0 when there are no buses
+        private int percentile(double p) {
+            int n = header.getNBuses();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * n));
+            long seen = 0;
+            for (int c = 0; c < capacities.length; c++) {
+                seen += capacities[c];
+                if (seen >= rank) {
+                    return c + minCapacityValue;
+                }
+            }
+            return capacities.length - 1 + minCapacityValue;
+        }
+
+    }
+
+}
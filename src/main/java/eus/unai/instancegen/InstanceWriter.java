@@ -0,0 +1,255 @@
+package eus.unai.instancegen;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Streams an {@link Instance} in the OPL data format straight into a {@link Writer} or a
+ * {@link WritableByteChannel}. Numbers are formatted into a reusable buffer, so no intermediate
+ * strings are created no matter the size of the instance. Decimals are written as
+ * {@code new DecimalFormat("#.##")} would do it, i.e. rounded half-even to at most two digits.
+ */
+public class InstanceWriter implements Flushable, Closeable {
+
+    private final static int BUFFER_SIZE = 8192;
+
+    // Above this magnitude the shortest representation DecimalFormat starts from may drop hundredths
+    private final static double MAX_FAST_DECIMAL = 1e12;
+
+    private final static double SPLITTER = 134217729D; // 2^27 + 1
+
+    private final Writer out;
+    private final char [] buffer = new char[BUFFER_SIZE];
+    private int position;
+
+    private final char decimalSeparator;
+    private final char minusSign;
+
+    public InstanceWriter(Writer out) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance();
+        this.out = out;
+        this.decimalSeparator = symbols.getDecimalSeparator();
+        this.minusSign = symbols.getMinusSign();
+    }
+
+    public InstanceWriter(WritableByteChannel channel) {
+        this(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE));
+    }
+
+    public void write(Instance instance) throws IOException {
+        writeHeader(instance);
+        writeInts("st", instance.getSt());
+        writeInts("sdt", instance.getSdt());
+        writeInts("sdd", instance.getSdd());
+        writeInts("dem", instance.getDem());
+        writeLine();
+        writeInts("cap", instance.getCap());
+        writeDecimals("euros_min", instance.getEurosMin());
+        writeDecimals("euros_km", instance.getEurosKm());
+        writeLine();
+        writeInts("maxHours", instance.getMaxHours());
+    }
+
+    /**
+     * Writes the comment, the sizes and the scalar parameters of the instance, ignoring its columns.
+     */
+    public void writeHeader(Instance instance) throws IOException {
+        append("/*********************************************\n");
+        append(" * OPL 12.8.0.0 Data\n");
+        append(" * Author: InstanceGenerator by unai.perez.mendizabal and ferran.torres.morales\n");
+        append(" * Creation Date: ").append(String.valueOf(instance.getCreationDate())).append("\n");
+        append(" *********************************************/\n");
+        append("\n");
+        append(" nServices = ").append(instance.getNServices()).append(";\n");
+        append(" nBuses = ").append(instance.getNBuses()).append(";\n");
+        append(" nDrivers = ").append(instance.getNDrivers()).append(";\n");
+        append("\n");
+        append(" maxBuses = ").append(instance.getMaxBuses()).append(";\n");
+        append(" BM = ").append(instance.getBM()).append(";\n");
+        append(" CBM = ").appendDecimal(instance.getCBM()).append(";\n");
+        append(" CEM = ").appendDecimal(instance.getCEM()).append(";\n");
+        append("\n");
+    }
+
+    // The values of the integer arrays are joined by spaces and enclosed in "[ " and " ]", so an
+    // empty one is written with two spaces
+
+    public void writeInts(String name, int [] values) throws IOException {
+        append(' ').append(name).append(" = [ ");
+        for (int value : values) {
+            append(value).append(' ');
+        }
+        if (values.length == 0) {
+            append(' ');
+        }
+        append("];\n");
+    }
+
+    public void writeInts(String name, int length, IntSupplier values) throws IOException {
+        append(' ').append(name).append(" = [ ");
+        for (int i = 0; i < length; i++) {
+            append(values.getAsInt()).append(' ');
+        }
+        if (length == 0) {
+            append(' ');
+        }
+        append("];\n");
+    }
+
+    // Unlike the integer arrays, the decimal ones have no space after the opening bracket
+
+    public void writeDecimals(String name, double [] values) throws IOException {
+        append(' ').append(name).append(" = [");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                append(' ');
+            }
+            appendDecimal(values[i]);
+        }
+        append(" ];\n");
+    }
+
+    public void writeDecimals(String name, int length, DoubleSupplier values) throws IOException {
+        append(' ').append(name).append(" = [");
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                append(' ');
+            }
+            appendDecimal(values.getAsDouble());
+        }
+        append(" ];\n");
+    }
+
+    public void writeLine() throws IOException {
+        append('\n');
+    }
+
+    InstanceWriter append(String s) throws IOException {
+        int length = s.length();
+        int offset = 0;
+        while (offset < length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(length - offset, buffer.length - position);
+            s.getChars(offset, offset + chunk, buffer, position);
+            position += chunk;
+            offset += chunk;
+        }
+        return this;
+    }
+
+    InstanceWriter append(char c) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+        return this;
+    }
+
+    InstanceWriter append(int value) throws IOException {
+        // 11 chars hold any int including its sign
+        if (buffer.length - position < 11) {
+            drain();
+        }
+        long v = value;
+        if (v < 0) {
+            buffer[position++] = '-';
+            v = -v;
+        }
+        int digits = digits(v);
+        int end = position + digits;
+        for (int p = end - 1; p >= position; p--) {
+            buffer[p] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        position = end;
+        return this;
+    }
+
+    /**
+     * Appends the value rounded half-even to two decimals, dropping trailing zeros. The rounding
+     * is decided on the exact binary value of the double, as {@link DecimalFormat} does, by
+     * computing the error of {@code value * 100} with Dekker's product. Huge values, which never
+     * show up in an instance, are left to {@link DecimalFormat} itself.
+     */
+    InstanceWriter appendDecimal(double value) throws IOException {
+        double magnitude = Math.abs(value);
+        if (!(magnitude < MAX_FAST_DECIMAL)) {
+            return append(new DecimalFormat("#.##").format(value));
+        }
+        // 17 chars hold the sign, 13 integer digits, the separator and two decimals
+        if (buffer.length - position < 17) {
+            drain();
+        }
+
+        double product = magnitude * 100;
+        double high = SPLITTER * magnitude;
+        high = high - (high - magnitude);
+        double low = magnitude - high;
+        double error = (high * 100 - product) + low * 100;
+
+        long hundredths = (long) Math.floor(product);
+        double tie = (product - hundredths) - 0.5;
+        if (tie > 0 || (tie == 0 && (error > 0 || (error == 0 && (hundredths & 1) == 1)))) {
+            hundredths++;
+        }
+
+        if (Double.doubleToRawLongBits(value) < 0) {
+            buffer[position++] = minusSign;
+        }
+        long integral = hundredths / 100;
+        int digits = digits(integral);
+        int end = position + digits;
+        for (int p = end - 1; p >= position; p--) {
+            buffer[p] = (char) ('0' + integral % 10);
+            integral /= 10;
+        }
+        position = end;
+        int fraction = (int) (hundredths % 100);
+        if (fraction != 0) {
+            buffer[position++] = decimalSeparator;
+            buffer[position++] = (char) ('0' + fraction / 10);
+            if (fraction % 10 != 0) {
+                buffer[position++] = (char) ('0' + fraction % 10);
+            }
+        }
+        return this;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+}
@@ -0,0 +1,108 @@
+package eus.unai.instancegen;
+
+import java.util.SplittableRandom;
+
+/**
+ * Uniform integers in {@code [min, max)}, or {@code min} when both bounds are equal. The bounds
+ * are checked once, when the range is created, instead of on every draw.
+ */
+public final class IntRange implements IntSampler {
+
+    // Draws of a distribution taken before giving up on landing within the range, and the least
+    // share of them that must land there
+    final static int MAX_DRAWS = 10_000;
+    final static double MIN_ACCEPTANCE = 0.01;
+
+    private final String name;
+    private final int min;
+    private final int span;
+
+    private IntRange(String name, int min, int span) {
+        this.name = name;
+        this.min = min;
+        this.span = span;
+    }
+
+    public static IntRange of(String name, int min, int max) {
+        if (max < min) {
+            throw new IllegalArgumentException("the range of " + name + " is empty: [" + min + ", " + max + ")");
+        }
+        return new IntRange(name, min, max - min);
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return min + span;
+    }
+
+    /**
+     * Whether this range can produce the value.
+     */
+    public boolean contains(int value) {
+        return span == 0 ? value == min : value >= min && value < min + span;
+    }
+
+    @Override
+    public String toString() {
+        return span == 0 ? String.valueOf(min) : "[" + min + ", " + (min + span) + ")";
+    }
+
+    /**
+     * Rounds the value to the closest integer that this range can produce.
+     */
+    public int clamp(double value) {
+        int max = span == 0 ? min : min + span - 1;
+        return (int) Math.max(min, Math.min(max, Math.round(value)));
+    }
+
+    /**
+     * Samples the distribution instead of the uniform one, truncated to this range: a draw that
+     * does not round to a value of the range is drawn again, so no probability piles up on the
+     * bounds. Only after {@link #MAX_DRAWS} misses in a row, which the check of the share of
+     * draws within the range makes all but impossible, is the last one clamped.
+     *
+     * @throws IllegalArgumentException if less than {@link #MIN_ACCEPTANCE} of the draws of the
+     * distribution fall within the range
+     */
+    public IntSampler with(Distribution distribution) {
+        if (span == 0) {
+            return random -> min;
+        }
+        SplittableRandom probe = new SplittableRandom(0);
+        int accepted = 0;
+        for (int i = 0; i < MAX_DRAWS; i++) {
+            if (contains(Math.round(distribution.sample(probe)))) {
+                accepted++;
+            }
+        }
+        if (accepted < MIN_ACCEPTANCE * MAX_DRAWS) {
+            throw new IllegalArgumentException("only " + 100.0 * accepted / MAX_DRAWS + "% of the draws of the distribution of "
+                    + name + " fall within " + this);
+        }
+        return random -> {
+            double value = distribution.sample(random);
+            for (int draws = 1; draws < MAX_DRAWS && !contains(Math.round(value)); draws++) {
+                value = distribution.sample(random);
+            }
+            return clamp(value);
+        };
+    }
+
+    private boolean contains(long value) {
+        return value >= min && value < min + span;
+    }
+
+    @Override
+    public int sample(SplittableRandom random) {
+        return span == 0 ? min : min + BulkRandom.nextInt(random, span);
+    }
+
+    @Override
+    public void fill(SplittableRandom random, int [] column) {
+        BulkRandom.fillUniformInt(random, column, min, min + span);
+    }
+
+}
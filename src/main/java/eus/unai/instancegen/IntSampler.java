@@ -0,0 +1,20 @@
+package eus.unai.instancegen;
+
+import java.util.SplittableRandom;
+
+@FunctionalInterface
+public interface IntSampler {
+
+    int sample(SplittableRandom random);
+
+    /**
+     * Fills the column with as many draws as it has, the same ones {@link #sample(SplittableRandom)}
+     * would give one by one.
+     */
+    default void fill(SplittableRandom random, int [] column) {
+        for (int i = 0; i < column.length; i++) {
+            column[i] = sample(random);
+        }
+    }
+
+}
@@ -0,0 +1,329 @@
+package eus.unai.instancegen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Parses OPL data files like the ones written by {@link InstanceWriter}, straight from their
+ * bytes. The arrays are read whatever their length, so that a truncated or inconsistent file can
+ * still be parsed and inspected; {@link BinaryInstanceWriter} and the validation are the ones to
+ * complain about them.
+ */
+public class OplParser {
+
+    private final static String CREATION_DATE = "Creation Date:";
+
+    private final ByteBuffer buffer;
+    private int position;
+    private final int limit;
+
+    private Date creationDate;
+    private int nServices, nBuses, nDrivers, maxBuses, BM;
+    private double CBM, CEM;
+    private int [] st, sdt, sdd, dem, cap, maxHours;
+    private double [] eurosMin, eurosKm;
+
+    private OplParser(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the buffer is not a valid OPL data file
+     */
+    public static Instance parse(ByteBuffer buffer) {
+        return new OplParser(buffer).parse();
+    }
+
+    public static Instance parse(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private Instance parse() {
+        while (skipBlanks()) {
+            String name = identifier();
+            skipBlanks();
+            expect('=');
+            skipBlanks();
+            if (peek() == '[') {
+                position++;
+                array(name);
+            } else {
+                scalar(name);
+            }
+            skipBlanks();
+            expect(';');
+        }
+        return Instance.builder()
+                .creationDate(creationDate)
+                .nServices(nServices)
+                .nBuses(nBuses)
+                .nDrivers(nDrivers)
+                .maxBuses(maxBuses)
+                .BM(BM)
+                .CBM(CBM)
+                .CEM(CEM)
+                .st(orEmpty(st))
+                .sdt(orEmpty(sdt))
+                .sdd(orEmpty(sdd))
+                .dem(orEmpty(dem))
+                .cap(orEmpty(cap))
+                .eurosMin(orEmpty(eurosMin))
+                .eurosKm(orEmpty(eurosKm))
+                .maxHours(orEmpty(maxHours))
+                .build();
+    }
+
+    private void scalar(String name) {
+        switch (name) {
+            case "nServices": nServices = integer(); break;
+            case "nBuses": nBuses = integer(); break;
+            case "nDrivers": nDrivers = integer(); break;
+            case "maxBuses": maxBuses = integer(); break;
+            case "BM": BM = integer(); break;
+            case "CBM": CBM = decimal(); break;
+            case "CEM": CEM = decimal(); break;
+            default: throw error("unknown parameter " + name);
+        }
+    }
+
+    private void array(String name) {
+        switch (name) {
+            case "st": st = ints(nServices); break;
+            case "sdt": sdt = ints(nServices); break;
+            case "sdd": sdd = ints(nServices); break;
+            case "dem": dem = ints(nServices); break;
+            case "cap": cap = ints(nBuses); break;
+            case "euros_min": eurosMin = decimals(nBuses); break;
+            case "euros_km": eurosKm = decimals(nBuses); break;
+            case "maxHours": maxHours = ints(nDrivers); break;
+            default: throw error("unknown array " + name);
+        }
+    }
+
+    private int [] ints(int expected) {
+        int [] values = new int[Math.max(expected, 0)];
+        int length = 0;
+        while (skipBlanks() && peek() != ']') {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, 2 * length));
+            }
+            values[length++] = integer();
+        }
+        expect(']');
+        return length == values.length ? values : Arrays.copyOf(values, length);
+    }
+
+    private double [] decimals(int expected) {
+        double [] values = new double[Math.max(expected, 0)];
+        int length = 0;
+        while (skipBlanks() && peek() != ']') {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, 2 * length));
+            }
+            values[length++] = decimal();
+        }
+        expect(']');
+        return length == values.length ? values : Arrays.copyOf(values, length);
+    }
+
+    private int integer() {
+        int start = position;
+        boolean negative = peek() == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (position < limit && isDigit(buffer.get(position))) {
+            value = 10 * value + (buffer.get(position++) - '0');
+            if (++digits > 10) {
+                break;
+            }
+        }
+        value = negative ? -value : value;
+        if (digits == 0 || value != (int) value) {
+            position = start;
+            throw error("expected an integer");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a decimal with either a dot or a comma as its separator, since the writer uses the one
+     * of its locale. Short decimals, which are all of the generated ones, are computed exactly as
+     * a quotient of two exact doubles; anything longer or with an exponent goes through
+     * {@link Double#parseDouble(String)}.
+     */
+    private double decimal() {
+        int start = position;
+        boolean negative = peek() == '-';
+        if (negative) {
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (isDigit(b)) {
+                mantissa = 10 * mantissa + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if ((b == '.' || b == ',') && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (digits == 0) {
+            position = start;
+            throw error("expected a decimal");
+        }
+        if (position < limit && (peek() == 'e' || peek() == 'E') || digits > 15 || scale > 22) {
+            while (position < limit && !isBlank(peek()) && peek() != ';' && peek() != ']') {
+                position++;
+            }
+            String text = string(start, position).replace(',', '.');
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                position = start;
+                throw error("expected a decimal");
+            }
+        }
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private final static double [] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+        }
+    }
+
+    private String identifier() {
+        int start = position;
+        while (position < limit && (Character.isLetterOrDigit(buffer.get(position)) || buffer.get(position) == '_')) {
+            position++;
+        }
+        if (start == position) {
+            throw error("expected a parameter name");
+        }
+        return string(start, position);
+    }
+
+    /**
+     * Skips blanks and comments, reading the creation date along the way.
+     *
+     * @return whether there is anything left
+     */
+    private boolean skipBlanks() {
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (isBlank(b)) {
+                position++;
+            } else if (b == '/' && position + 1 < limit && buffer.get(position + 1) == '*') {
+                int start = position + 2;
+                int end = start;
+                while (end + 1 < limit && !(buffer.get(end) == '*' && buffer.get(end + 1) == '/')) {
+                    end++;
+                }
+                if (end + 1 >= limit) {
+                    throw error("unterminated comment");
+                }
+                comment(string(start, end));
+                position = end + 2;
+            } else if (b == '/' && position + 1 < limit && buffer.get(position + 1) == '/') {
+                while (position < limit && buffer.get(position) != '\n') {
+                    position++;
+                }
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void comment(String comment) {
+        int index = comment.indexOf(CREATION_DATE);
+        if (index < 0) {
+            return;
+        }
+        int end = comment.indexOf('\n', index);
+        String date = comment.substring(index + CREATION_DATE.length(), end < 0 ? comment.length() : end).trim();
+        try {
+            // The format of Date.toString()
+            creationDate = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US).parse(date);
+        } catch (ParseException e) {
+            creationDate = null;
+        }
+    }
+
+    private byte peek() {
+        if (position >= limit) {
+            throw error("unexpected end of file");
+        }
+        return buffer.get(position);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private String string(int start, int end) {
+        byte [] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private IllegalArgumentException error(String message) {
+        int line = 1;
+        for (int i = buffer.position(); i < position && i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                line++;
+            }
+        }
+        return new IllegalArgumentException("line " + line + ": " + message);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static int [] orEmpty(int [] values) {
+        return values == null ? new int[0] : values;
+    }
+
+    private static double [] orEmpty(double [] values) {
+        return values == null ? new double[0] : values;
+    }
+
+}
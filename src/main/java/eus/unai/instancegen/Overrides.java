@@ -0,0 +1,81 @@
+package eus.unai.instancegen;
+
+import lombok.Builder;
+import lombok.Value;
+import org.apache.commons.cli.CommandLine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Value
+@Builder(toBuilder = true)
+public class Overrides {
+
+    /**
+     * Names of the parameters when they are given by name, as in the server and the sweeps.
+     */
+    public final static List<String> PARAMETERS = Arrays.asList(
+            "services", "buses", "drivers", "maxBuses", "baseMinutes", "basePay", "extraPay", "routes");
+
+    private Integer services;
+    private Integer buses;
+    private Integer drivers;
+
+    private Integer maxBuses;
+    private Integer baseMinutes;
+    private Double basePay;
+    private Double extraPay;
+
+    // Amount of routes the services are trips of, or 0 for independent services
+    private Integer routes;
+
+    public static Overrides from(CommandLine cmd) {
+        return Overrides.builder()
+                .services(Optional.ofNullable(cmd.getOptionValue("S")).map(Integer::parseInt).orElse(null))
+                .buses(Optional.ofNullable(cmd.getOptionValue("B")).map(Integer::parseInt).orElse(null))
+                .drivers(Optional.ofNullable(cmd.getOptionValue("D")).map(Integer::parseInt).orElse(null))
+                .maxBuses(Optional.ofNullable(cmd.getOptionValue("x")).map(Integer::parseInt).orElse(null))
+                .baseMinutes(Optional.ofNullable(cmd.getOptionValue("b")).map(Integer::parseInt).orElse(null))
+                .basePay(Optional.ofNullable(cmd.getOptionValue("c")).map(Double::parseDouble).orElse(null))
+                .extraPay(Optional.ofNullable(cmd.getOptionValue("e")).map(Double::parseDouble).orElse(null))
+                .routes(Optional.ofNullable(cmd.getOptionValue("routes")).map(Integer::parseInt).orElse(null))
+                .build();
+    }
+
+    /**
+     * Reads the {@link #PARAMETERS} found among the given ones, ignoring any other.
+     */
+    public static Overrides from(Map<String, String> parameters) {
+        Overrides overrides = Overrides.builder().build();
+        for (String name : PARAMETERS) {
+            if (parameters.containsKey(name)) {
+                overrides = overrides.with(name, parameters.get(name));
+            }
+        }
+        return overrides;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such parameter or the value is not a number
+     */
+    public Overrides with(String name, String value) {
+        switch (name) {
+            case "services": return toBuilder().services(Integer.parseInt(value)).build();
+            case "buses": return toBuilder().buses(Integer.parseInt(value)).build();
+            case "drivers": return toBuilder().drivers(Integer.parseInt(value)).build();
+            case "maxBuses": return toBuilder().maxBuses(Integer.parseInt(value)).build();
+            case "baseMinutes": return toBuilder().baseMinutes(Integer.parseInt(value)).build();
+            case "basePay": return toBuilder().basePay(Double.parseDouble(value)).build();
+            case "extraPay": return toBuilder().extraPay(Double.parseDouble(value)).build();
+            case "routes": return toBuilder().routes(Integer.parseInt(value)).build();
+            default: throw new IllegalArgumentException("unknown parameter " + name);
+        }
+    }
+
+    public static boolean isDecimal(String name) {
+        return name.equals("basePay") || name.equals("extraPay");
+    }
+
+}
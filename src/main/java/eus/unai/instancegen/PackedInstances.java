@@ -0,0 +1,47 @@
+package eus.unai.instancegen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the instances written by {@link PackedSink}. The index is memory-mapped as a whole and
+ * every instance is mapped on demand, so any of them is reached without scanning the pack.
+ */
+public class PackedInstances implements Closeable {
+
+    private final FileChannel pack;
+    private final LongBuffer index;
+
+    public PackedInstances(Path directory) throws IOException {
+        this.pack = FileChannel.open(directory.resolve(PackedSink.PACK_FILE), StandardOpenOption.READ);
+        try (FileChannel channel = FileChannel.open(directory.resolve(PackedSink.INDEX_FILE), StandardOpenOption.READ)) {
+            this.index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asLongBuffer();
+        }
+    }
+
+    public int size() {
+        return index.limit() / 2;
+    }
+
+    /**
+     * Maps the instance with the given index: its OPL data encoded in UTF-8, or its binary
+     * columns, which {@link InstanceReader} reads.
+     */
+    public ByteBuffer get(int i) throws IOException {
+        return pack.map(FileChannel.MapMode.READ_ONLY, index.get(2 * i), index.get(2 * i + 1));
+    }
+
+    @Override
+    public void close() throws IOException {
+        pack.close();
+    }
+
+}
@@ -0,0 +1,57 @@
+package eus.unai.instancegen;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Concatenates all the instances into a single {@code instances.pack} file, together with an
+ * {@code instances.idx} file that holds, for every instance index, the offset and the length of
+ * the instance within the pack as two little-endian longs. {@link PackedInstances} reads them back.
+ * The instances are written in whichever format the batch uses.
+ */
+public class PackedSink extends BufferedSink {
+
+    public final static String PACK_FILE = "instances.pack";
+    public final static String INDEX_FILE = "instances.idx";
+
+    private final Path directory;
+    private final FileChannel pack;
+    private final long [] offsets;
+    private final long [] lengths;
+
+    public PackedSink(Path directory, int amount) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.pack = FileSink.create(directory.resolve(PACK_FILE));
+        this.offsets = new long[amount];
+        this.lengths = new long[amount];
+    }
+
+    @Override
+    protected void append(int index, Rendering instance) throws IOException {
+        offsets[index] = pack.position();
+        lengths[index] = instance.size();
+        instance.writeTo(Channels.newOutputStream(pack));
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        pack.close();
+        ByteBuffer index = ByteBuffer.allocate(16 * offsets.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < offsets.length; i++) {
+            index.putLong(offsets[i]).putLong(lengths[i]);
+        }
+        ((Buffer) index).flip();
+        try (FileChannel channel = FileSink.create(directory.resolve(INDEX_FILE))) {
+            while (index.hasRemaining()) {
+                channel.write(index);
+            }
+        }
+    }
+
+}
@@ -1,15 +1,31 @@
 package eus.unai.instancegen;
 
-import lombok.Builder;
-import lombok.Value;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
 
-@Value
-@Builder
+/**
+ * View over a row of the service columns of an {@link Instance}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 public class Service {
 
-    private int startingTime;
-    private int durationInMinutes;
-    private int durationInKilometers;
-    private int demand;
+    private final Instance instance;
+    private final int index;
+
+    public int getStartingTime() {
+        return instance.getSt()[index];
+    }
+
+    public int getDurationInMinutes() {
+        return instance.getSdt()[index];
+    }
+
+    public int getDurationInKilometers() {
+        return instance.getSdd()[index];
+    }
+
+    public int getDemand() {
+        return instance.getDem()[index];
+    }
 
 }
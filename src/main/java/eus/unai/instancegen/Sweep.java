@@ -0,0 +1,200 @@
+package eus.unai.instancegen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A design of experiments over the {@link Overrides#PARAMETERS overridable parameters}. Each
+ * swept parameter takes
+ * <ul>
+ *     <li>a list of values, {@code services=100,200,400},</li>
+ *     <li>an inclusive range with a step, {@code basePay=0.5:1.5:0.25}, or</li>
+ *     <li>a Latin hypercube over an interval, {@code buses=lhs(10,50)}.</li>
+ * </ul>
+ * The cells are the Cartesian product of the lists and ranges, in the order the parameters are
+ * given with the last one varying fastest, each of them crossed with the points of a single Latin
+ * hypercube design shared by all the {@code lhs} parameters.
+ */
+public class Sweep {
+
+    private final Map<String, List<String>> grid = new LinkedHashMap<>();
+    private final Map<String, double []> hypercube = new LinkedHashMap<>();
+    private final int samples;
+
+    /**
+     * @param specs {@code name=values} for every swept parameter
+     * @param samples amount of points of the Latin hypercube, if any parameter is swept with it
+     * @throws IllegalArgumentException if any spec cannot be read
+     */
+    public Sweep(List<String> specs, int samples) {
+        for (String spec : specs) {
+            int equals = spec.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("expected name=values instead of " + spec);
+            }
+            String name = spec.substring(0, equals).trim();
+            String values = spec.substring(equals + 1).trim();
+            if (!Overrides.PARAMETERS.contains(name)) {
+                throw new IllegalArgumentException("unknown parameter " + name + ", expected one of " + Overrides.PARAMETERS);
+            }
+            if (grid.containsKey(name) || hypercube.containsKey(name)) {
+                throw new IllegalArgumentException("the parameter " + name + " is swept twice");
+            }
+            if (values.startsWith("lhs(") && values.endsWith(")")) {
+                String [] bounds = values.substring(4, values.length() - 1).split(",");
+                if (bounds.length != 2) {
+                    throw new IllegalArgumentException("expected lhs(min,max) instead of " + values);
+                }
+                double min = Double.parseDouble(bounds[0].trim());
+                double max = Double.parseDouble(bounds[1].trim());
+                if (max < min || !Overrides.isDecimal(name) && Math.floor(max) < Math.ceil(min)) {
+                    throw new IllegalArgumentException("the interval of " + spec + " is empty");
+                }
+                hypercube.put(name, new double [] { min, max });
+            } else if (values.contains(":")) {
+                grid.put(name, range(name, values));
+            } else {
+                List<String> list = new ArrayList<>();
+                for (String value : values.split(",")) {
+                    list.add(value.trim());
+                }
+                grid.put(name, list);
+            }
+            // Fails now rather than in the middle of the sweep
+            for (String value : grid.getOrDefault(name, Collections.emptyList())) {
+                Overrides.builder().build().with(name, value);
+            }
+        }
+        if (!hypercube.isEmpty() && samples <= 0) {
+            throw new IllegalArgumentException("a Latin hypercube needs a positive amount of samples");
+        }
+        this.samples = hypercube.isEmpty() ? 1 : samples;
+    }
+
+    private static List<String> range(String name, String values) {
+        String [] parts = values.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("expected from:to:step instead of " + values);
+        }
+        List<String> range = new ArrayList<>();
+        if (Overrides.isDecimal(name)) {
+            double from = Double.parseDouble(parts[0].trim());
+            double to = Double.parseDouble(parts[1].trim());
+            double step = Double.parseDouble(parts[2].trim());
+            if (step <= 0) {
+                throw new IllegalArgumentException("the step of " + values + " must be positive");
+            }
+            // Multiplying rather than accumulating the step, with some tolerance for the last value
+            for (long k = 0; from + k * step <= to + step * 1e-9; k++) {
+                range.add(String.valueOf(from + k * step));
+            }
+        } else {
+            int from = Integer.parseInt(parts[0].trim());
+            int to = Integer.parseInt(parts[1].trim());
+            int step = Integer.parseInt(parts[2].trim());
+            if (step <= 0) {
+                throw new IllegalArgumentException("the step of " + values + " must be positive");
+            }
+            for (long value = from; value <= to; value += step) {
+                range.add(String.valueOf(value));
+            }
+        }
+        if (range.isEmpty()) {
+            throw new IllegalArgumentException("the range " + values + " is empty");
+        }
+        return range;
+    }
+
+    /**
+     * Names of the swept parameters.
+     */
+    public List<String> getParameters() {
+        List<String> parameters = new ArrayList<>(grid.keySet());
+        parameters.addAll(hypercube.keySet());
+        return parameters;
+    }
+
+    /**
+     * Amount of cells of the design, without expanding it.
+     */
+    public int size() {
+        int size = samples;
+        for (List<String> values : grid.values()) {
+            size = Math.multiplyExact(size, values.size());
+        }
+        return size;
+    }
+
+    /**
+     * Expands the design into the values of the swept parameters of every cell. The Latin
+     * hypercube, if any, is drawn from the given seed.
+     */
+    public List<Map<String, String>> cells(long seed) {
+        List<Map<String, String>> points = hypercube(seed);
+        List<Map<String, String>> cells = new ArrayList<>();
+        cells.add(new LinkedHashMap<>());
+        for (Map.Entry<String, List<String>> parameter : grid.entrySet()) {
+            List<Map<String, String>> expanded = new ArrayList<>(cells.size() * parameter.getValue().size());
+            for (Map<String, String> cell : cells) {
+                for (String value : parameter.getValue()) {
+                    Map<String, String> next = new LinkedHashMap<>(cell);
+                    next.put(parameter.getKey(), value);
+                    expanded.add(next);
+                }
+            }
+            cells = expanded;
+        }
+        List<Map<String, String>> crossed = new ArrayList<>(cells.size() * points.size());
+        for (Map<String, String> cell : cells) {
+            for (Map<String, String> point : points) {
+                Map<String, String> next = new LinkedHashMap<>(cell);
+                next.putAll(point);
+                crossed.add(next);
+            }
+        }
+        return crossed;
+    }
+
+    /**
+     * Splits the interval of every parameter into as many strata as samples and visits each
+     * stratum once, in an independent random order per parameter. Integer parameters stratify
+     * {@code [min, max + 1)} so that both bounds can be drawn.
+     */
+    private List<Map<String, String>> hypercube(long seed) {
+        List<Map<String, String>> points = new ArrayList<>(samples);
+        for (int i = 0; i < samples; i++) {
+            points.add(new LinkedHashMap<>());
+        }
+        int dimension = 0;
+        for (Map.Entry<String, double []> parameter : hypercube.entrySet()) {
+            SplittableRandom random = new SplittableRandom(InstanceSampler.seedFor(seed, InstanceSampler.HYPERCUBE, dimension++));
+            int [] strata = new int[samples];
+            for (int i = 0; i < samples; i++) {
+                strata[i] = i;
+            }
+            for (int i = samples - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = strata[i];
+                strata[i] = strata[j];
+                strata[j] = swap;
+            }
+            double min = parameter.getValue()[0];
+            double max = parameter.getValue()[1];
+            boolean decimal = Overrides.isDecimal(parameter.getKey());
+            double width = decimal ? max - min : Math.floor(max) - Math.ceil(min) + 1;
+            for (int i = 0; i < samples; i++) {
+                double u = (strata[i] + random.nextDouble()) / samples;
+                String value = decimal
+                        ? String.valueOf(min + u * width)
+                        : String.valueOf((long) Math.min(Math.floor(max), Math.ceil(min) + Math.floor(u * width)));
+                points.get(i).put(parameter.getKey(), value);
+            }
+        }
+        return points;
+    }
+
+}
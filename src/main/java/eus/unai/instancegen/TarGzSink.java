@@ -0,0 +1,84 @@
+package eus.unai.instancegen;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes all the instances as {@code data<i>.dat} entries of a single gzipped ustar archive,
+ * dated like {@link ZipSink} with the creation date of the instances.
+ */
+public class TarGzSink extends BufferedSink {
+
+    private final static int BLOCK_SIZE = 512;
+
+    private final OutputStream out;
+    private final InstanceFormat format;
+    private final long modificationTime;
+
+    public TarGzSink(Path file, InstanceFormat format, Date creationDate) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 1 << 16);
+        this.format = format;
+        this.modificationTime = creationDate.getTime() / 1000;
+    }
+
+    @Override
+    protected void append(int index, Rendering instance) throws IOException {
+        out.write(header(format.fileName(index), instance.size()));
+        instance.writeTo(out);
+        int padding = (int) ((BLOCK_SIZE - instance.size() % BLOCK_SIZE) % BLOCK_SIZE);
+        out.write(new byte[padding]);
+    }
+
+    private byte [] header(String name, long size) {
+        byte [] header = new byte[BLOCK_SIZE];
+        field(header, 0, 100, name);
+        field(header, 100, 8, octal(0644, 7));
+        field(header, 108, 8, octal(0, 7));
+        field(header, 116, 8, octal(0, 7));
+        field(header, 124, 12, octal(size, 11));
+        field(header, 136, 12, octal(modificationTime, 11));
+        header[156] = '0'; // Regular file
+        field(header, 257, 6, "ustar");
+        field(header, 263, 2, "00");
+        // The checksum is computed with its own field filled with spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        field(header, 148, 8, octal(checksum, 6));
+        header[154] = 0;
+        header[155] = ' ';
+        return header;
+    }
+
+    private static String octal(long value, int digits) {
+        StringBuilder octal = new StringBuilder(Long.toOctalString(value));
+        while (octal.length() < digits) {
+            octal.insert(0, '0');
+        }
+        return octal.toString();
+    }
+
+    private static void field(byte [] header, int offset, int length, String value) {
+        byte [] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        // The archive ends with two empty blocks
+        out.write(new byte[2 * BLOCK_SIZE]);
+        out.close();
+    }
+
+}
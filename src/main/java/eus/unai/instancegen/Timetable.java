@@ -0,0 +1,210 @@
+package eus.unai.instancegen;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Services laid out as the periodic trips of a few routes, the way real timetables repeat the
+ * same route many times a day. Every route has its own length, duration and base demand, and runs
+ * its trips evenly spaced over the day; a trip only refers to its route and its position in it,
+ * so the timetable takes memory for its routes, not for its services. The demand of a trip is the
+ * base demand of its route scaled by the demand profile of the day at its starting time, and the
+ * base demands are drawn within a range narrow enough for that to stay within the demand range.
+ * <p>
+ * The services are ordered by route, and by starting time within each route.
+ */
+final class Timetable {
+
+    private final int minStartingTime;
+    private final int window;
+    private final IntRange demandRange;
+    private final double [] demandProfile;
+
+    // First service of every route, and the amount of services last
+    private final int [] firstTrips;
+    // Minutes between the earliest starting time and the first trip of every route
+    private final int [] offsets;
+    private final int [] kms;
+    private final int [] minutes;
+    private final double [] demands;
+
+    private Timetable(int minStartingTime, int window, IntRange demandRange, double [] demandProfile, int routes) {
+        this.minStartingTime = minStartingTime;
+        this.window = window;
+        this.demandRange = demandRange;
+        this.demandProfile = demandProfile;
+        this.firstTrips = new int[routes + 1];
+        this.offsets = new int[routes];
+        this.kms = new int[routes];
+        this.minutes = new int[routes];
+        this.demands = new double[routes];
+    }
+
+    /**
+     * Samples the routes and splits the services among them, giving every route between one and
+     * four times the frequency of the least frequent one.
+     *
+     * @param startingTimes range of the starting times of the trips
+     * @param demandProfile factor of the demand of the trips starting at every minute of that range,
+     *                      its maximum included
+     */
+    static Timetable sample(SplittableRandom random, int services, int routes, IntRange startingTimes,
+                            IntSampler durationKms, IntUnaryOperator minDurationMins, IntUnaryOperator maxDurationMins,
+                            IntSampler demand, IntRange demandRange, double [] demandProfile) {
+        Timetable timetable = new Timetable(startingTimes.getMin(), startingTimes.getMax() - startingTimes.getMin(),
+                demandRange, demandProfile, routes);
+        double [] baseDemands = baseDemands(demandRange, demandProfile);
+        int minDemand = demandRange.getMin();
+        int demandSpan = Math.max(demandRange.getMax() - 1 - minDemand, 1);
+        double [] weights = new double[routes];
+        double totalWeight = 0;
+        for (int r = 0; r < routes; r++) {
+            int kms = durationKms.sample(random);
+            int min = minDurationMins.applyAsInt(kms);
+            int span = maxDurationMins.applyAsInt(kms) - min;
+            timetable.kms[r] = kms;
+            timetable.minutes[r] = span == 0 ? min : min + BulkRandom.nextInt(random, span);
+            // The drawn demand is mapped linearly onto the range of the base demands
+            timetable.demands[r] = baseDemands[0] + (demand.sample(random) - minDemand) * (baseDemands[1] - baseDemands[0]) / demandSpan;
+            weights[r] = 1 + 3 * random.nextDouble();
+            totalWeight += weights[r];
+        }
+
+        // Largest remainder split, so that the trips add up to the services exactly
+        int [] trips = new int[routes];
+        Integer [] byRemainder = new Integer[routes];
+        double [] remainders = new double[routes];
+        int assigned = 0;
+        for (int r = 0; r < routes; r++) {
+            double share = services * weights[r] / totalWeight;
+            trips[r] = (int) share;
+            remainders[r] = share - trips[r];
+            assigned += trips[r];
+            byRemainder[r] = r;
+        }
+        Arrays.sort(byRemainder, (a, b) -> Double.compare(remainders[b], remainders[a]));
+        for (int i = 0; i < services - assigned; i++) {
+            trips[byRemainder[i]]++;
+        }
+
+        for (int r = 0; r < routes; r++) {
+            timetable.firstTrips[r + 1] = timetable.firstTrips[r] + trips[r];
+            int headway = trips[r] == 0 ? 0 : timetable.window / trips[r];
+            timetable.offsets[r] = headway == 0 ? 0 : BulkRandom.nextInt(random, headway);
+        }
+        return timetable;
+    }
+
+    /**
+     * Range of the base demands of the routes, such that scaling any of them by the demand
+     * profile stays within the demand range: the least demand divided by the lowest factor of
+     * the profile, and the greatest one divided by the highest factor.
+     *
+     * @throws IllegalArgumentException if the demand range is too narrow for the profile
+     */
+    static double [] baseDemands(IntRange demandRange, double [] demandProfile) {
+        double low = Double.POSITIVE_INFINITY;
+        double high = 0;
+        for (double factor : demandProfile) {
+            low = Math.min(low, factor);
+            high = Math.max(high, factor);
+        }
+        // The greatest demand is the last one within the range
+        int minDemand = demandRange.getMin();
+        int maxDemand = Math.max(demandRange.getMax() - 1, minDemand);
+        double minBase = minDemand / low;
+        double maxBase = maxDemand / high;
+        if (minBase > maxBase) {
+            throw new IllegalArgumentException("the demand range " + demandRange + " is too narrow for the demand of the routes to vary "
+                    + String.format(Locale.ROOT, "%.2f", high / low) + " times between their quietest and busiest times");
+        }
+        return new double [] { minBase, maxBase };
+    }
+
+    int getRoutes() {
+        return offsets.length;
+    }
+
+    private int startingTime(int route, int trip) {
+        int trips = firstTrips[route + 1] - firstTrips[route];
+        return minStartingTime + offsets[route] + (int) ((long) trip * window / trips);
+    }
+
+    private int demand(int route, int startingTime) {
+        // Within the demand range but for rounding errors
+        return demandRange.clamp(demands[route] * demandProfile[startingTime - minStartingTime]);
+    }
+
+    void fill(int [] st, int [] sdt, int [] sdd, int [] dem) {
+        for (int r = 0; r < getRoutes(); r++) {
+            for (int s = firstTrips[r]; s < firstTrips[r + 1]; s++) {
+                st[s] = startingTime(r, s - firstTrips[r]);
+                sdt[s] = minutes[r];
+                sdd[s] = kms[r];
+                dem[s] = demand(r, st[s]);
+            }
+        }
+    }
+
+    IntSupplier startingTimes() {
+        return new Trips() {
+            @Override
+            int value(int route, int trip) {
+                return startingTime(route, trip);
+            }
+        };
+    }
+
+    IntSupplier durationsInMinutes() {
+        return new Trips() {
+            @Override
+            int value(int route, int trip) {
+                return minutes[route];
+            }
+        };
+    }
+
+    IntSupplier durationsInKilometers() {
+        return new Trips() {
+            @Override
+            int value(int route, int trip) {
+                return kms[route];
+            }
+        };
+    }
+
+    IntSupplier demands() {
+        return new Trips() {
+            @Override
+            int value(int route, int trip) {
+                return demand(route, startingTime(route, trip));
+            }
+        };
+    }
+
+    /**
+     * Walks the trips in the order of the services, one value of each.
+     */
+    private abstract class Trips implements IntSupplier {
+
+        private int route;
+        private int service;
+
+        abstract int value(int route, int trip);
+
+        @Override
+        public int getAsInt() {
+            while (service >= firstTrips[route + 1]) {
+                route++;
+            }
+            int value = value(route, service - firstTrips[route]);
+            service++;
+            return value;
+        }
+
+    }
+
+}
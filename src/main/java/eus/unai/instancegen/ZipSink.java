@@ -0,0 +1,48 @@
+package eus.unai.instancegen;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes all the instances as {@code data<i>.dat} entries of a single zip archive. The entries
+ * are dated with the creation date of the instances, so that two runs with the same seed and the
+ * same date give the same archive.
+ */
+public class ZipSink extends BufferedSink {
+
+    private final ZipOutputStream out;
+    private final InstanceFormat format;
+    private final long modificationTime;
+
+    public ZipSink(Path file, InstanceFormat format, Date creationDate) throws IOException {
+        this(Files.newOutputStream(Files.createDirectories(file.toAbsolutePath().getParent()).resolve(file.getFileName())),
+                format, creationDate);
+    }
+
+    public ZipSink(OutputStream out, InstanceFormat format, Date creationDate) {
+        this.out = new ZipOutputStream(new BufferedOutputStream(out));
+        this.format = format;
+        this.modificationTime = creationDate.getTime();
+    }
+
+    @Override
+    protected void append(int index, Rendering instance) throws IOException {
+        ZipEntry entry = new ZipEntry(format.fileName(index));
+        entry.setTime(modificationTime);
+        out.putNextEntry(entry);
+        instance.writeTo(out);
+        out.closeEntry();
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        out.close();
+    }
+
+}
@@ -0,0 +1,78 @@
+package eus.unai.instancegen;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BulkRandomTest {
+
+    private final static int [] SPANS = { 1, 2, 3, 7, 10, 100, 1000, 65_537, 1 << 30, (1 << 30) + 1, Integer.MAX_VALUE };
+
+    @Test
+    public void fillsTheValuesOfDrawingThemOneByOne() {
+        for (int span : SPANS) {
+            for (int min : new int [] { 0, -5, -span }) {
+                SplittableRandom bulk = new SplittableRandom(span);
+                SplittableRandom single = new SplittableRandom(span);
+                int [] filled = new int[10_000];
+                BulkRandom.fillUniformInt(bulk, filled, min, min + span);
+                int [] drawn = new int[filled.length];
+                for (int i = 0; i < drawn.length; i++) {
+                    drawn[i] = min + BulkRandom.nextInt(single, span);
+                }
+                assertArrayEquals("span " + span, drawn, filled);
+                // Both leave the generator in the same state
+                assertEquals(single.nextLong(), bulk.nextLong());
+            }
+        }
+    }
+
+    @Test
+    public void fillsOnlyThePartOfTheColumn() {
+        SplittableRandom bulk = new SplittableRandom(1);
+        SplittableRandom single = new SplittableRandom(1);
+        int [] filled = new int[100];
+        BulkRandom.fillUniformInt(bulk, filled, 20, 70, 5, 50);
+        for (int i = 0; i < filled.length; i++) {
+            assertEquals(i < 20 || i >= 70 ? 0 : 5 + BulkRandom.nextInt(single, 45), filled[i]);
+        }
+    }
+
+    @Test
+    public void fillsTheMinimumOfAnEmptySpanWithoutDrawing() {
+        SplittableRandom random = new SplittableRandom(1);
+        int [] filled = new int[10];
+        BulkRandom.fillUniformInt(random, filled, 7, 7);
+        assertArrayEquals(new int [] { 7, 7, 7, 7, 7, 7, 7, 7, 7, 7 }, filled);
+        assertEquals(new SplittableRandom(1).nextLong(), random.nextLong());
+    }
+
+    @Test
+    public void drawsUniformlyWithinTheBound() {
+        SplittableRandom random = new SplittableRandom(3);
+        int bound = 10;
+        int draws = 1_000_000;
+        int [] counts = new int[bound];
+        for (int i = 0; i < draws; i++) {
+            counts[BulkRandom.nextInt(random, bound)]++;
+        }
+        double chiSquare = 0;
+        for (int count : counts) {
+            double expected = (double) draws / bound;
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        // 99.9th percentile of the chi-square distribution with 9 degrees of freedom
+        assertTrue("chi-square " + chiSquare, chiSquare < 27.88);
+
+        // The largest bound, where almost half of the 32-bit draws are rejected, stays within it
+        for (int i = 0; i < 100_000; i++) {
+            int value = BulkRandom.nextInt(random, Integer.MAX_VALUE);
+            assertTrue(value >= 0 && value < Integer.MAX_VALUE);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package eus.unai.instancegen;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DoubleRangeTest {
+
+    @Test
+    public void truncatesDistributionsToTheHalfOpenRange() {
+        DoubleRange range = DoubleRange.of("euros per minute", 0, 5);
+        DoubleSampler sampler = range.with(Distributions.uniform(-5, 10));
+        SplittableRandom random = new SplittableRandom(1);
+        double sum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            double value = sampler.sample(random);
+            assertTrue(value + " is out of " + range, value >= 0 && value < 5);
+            sum += value;
+        }
+        // Uniform within the range, as a truncated uniform must be, instead of a third of the draws on each bound
+        assertEquals(2.5, sum / 100_000, 0.02);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDistributionsThatBarelyReachTheRange() {
+        DoubleRange.of("euros per kilometer", 0, 1).with(Distributions.normal(100, 1));
+    }
+
+}
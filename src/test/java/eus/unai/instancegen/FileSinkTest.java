@@ -0,0 +1,109 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FileSinkTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void generate(Path output, InstanceFormat format, Batch batch) throws Exception {
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), CREATION_DATE);
+        try (InstanceSink sink = new FileSink(output, format)) {
+            InstanceGenerator.generate(sampler, sink, batch.toBuilder().format(format).build());
+        }
+    }
+
+    private static Map<Path, byte []> contents(Path directory) throws Exception {
+        Map<Path, byte []> contents = new HashMap<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                contents.put(file, Files.readAllBytes(file));
+            }
+        }
+        return contents;
+    }
+
+    @Test
+    public void neverWritesThroughTheLinksIntoTheCache() throws Exception {
+        for (InstanceFormat format : InstanceFormat.values()) {
+            Path cacheDirectory = folder.newFolder().toPath();
+            Path output = folder.newFolder().toPath();
+            InstanceCache cache = new InstanceCache(cacheDirectory, Long.MAX_VALUE);
+            generate(output, format, Batch.builder().seed(1).amount(3).cache(cache).build());
+            Map<Path, byte []> cached = contents(cacheDirectory);
+            assertEquals(3, cached.size());
+            Path first = output.resolve(format.fileName(0));
+            assertTrue(linked(first, cached));
+
+            // Another seed into the same output, without the cache, replaces the linked files
+            generate(output, format, Batch.builder().seed(99).amount(3).build());
+            assertFalse(linked(first, cached));
+            assertCacheUnchanged(cached);
+        }
+    }
+
+    @Test
+    public void convertsWithoutWritingThroughTheLinksIntoTheCache() throws Exception {
+        Path cacheDirectory = folder.newFolder().toPath();
+        Path output = folder.newFolder().toPath();
+        Path other = folder.newFolder().toPath();
+        InstanceCache cache = new InstanceCache(cacheDirectory, Long.MAX_VALUE);
+        generate(output, InstanceFormat.OPL, Batch.builder().seed(1).amount(1).cache(cache).build());
+        Map<Path, byte []> cached = contents(cacheDirectory);
+        generate(other, InstanceFormat.BINARY, Batch.builder().seed(99).amount(1).build());
+
+        Path converted = InstanceGenerator.convert(other.resolve(InstanceFormat.BINARY.fileName(0)), output);
+        assertEquals(output.resolve(InstanceFormat.OPL.fileName(0)), converted);
+        assertFalse(linked(converted, cached));
+        assertCacheUnchanged(cached);
+    }
+
+    private static boolean linked(Path file, Map<Path, byte []> cached) throws Exception {
+        for (Path entry : cached.keySet()) {
+            if (Files.isSameFile(file, entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void assertCacheUnchanged(Map<Path, byte []> cached) throws Exception {
+        for (Map.Entry<Path, byte []> entry : cached.entrySet()) {
+            assertArrayEquals(entry.getValue(), Files.readAllBytes(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void keepsPackedOutputsApartFromTheCache() throws Exception {
+        Path cacheDirectory = folder.newFolder().toPath();
+        Path output = folder.newFolder().toPath();
+        InstanceCache cache = new InstanceCache(cacheDirectory, Long.MAX_VALUE);
+        generate(output, InstanceFormat.OPL, Batch.builder().seed(1).amount(2).cache(cache).build());
+        Map<Path, byte []> cached = contents(cacheDirectory);
+        // Somebody links the pack to a cached instance; writing the pack must not touch it
+        Files.createLink(output.resolve(PackedSink.PACK_FILE), cached.keySet().iterator().next());
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), CREATION_DATE);
+        try (InstanceSink sink = new PackedSink(output, 2)) {
+            InstanceGenerator.generate(sampler, sink, Batch.builder().seed(99).amount(2).build());
+        }
+        assertCacheUnchanged(cached);
+    }
+
+}
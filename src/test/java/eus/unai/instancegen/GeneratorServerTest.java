@@ -0,0 +1,92 @@
+package eus.unai.instancegen;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeneratorServerTest {
+
+    private GeneratorServer server;
+
+    @Before
+    public void start() throws IOException {
+        server = new GeneratorServer(0, 2);
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        server.stop();
+    }
+
+    private HttpURLConnection post(String query, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/generate?" + query).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte [] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void streamsAnArchiveWithTheInstances() throws IOException {
+        HttpURLConnection connection = post("amount=4&seed=42&services=2000", "{ \"minDemand\": 10, \"maxDemand\": 60 }");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("application/zip", connection.getContentType());
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(connection.getInputStream())) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                names.add(entry.getName());
+                assertTrue(readAll(in).contains(" nServices = 2000;"));
+            }
+        }
+        names.sort(null);
+        assertEquals(4, names.size());
+        assertEquals("data0.dat", names.get(0));
+    }
+
+    @Test
+    public void answersInvalidRequestsWithBadRequest() throws IOException {
+        assertEquals(400, post("amount=2", "{ \"minDemand\" 10 }").getResponseCode());
+        assertEquals(400, post("amount=two", "").getResponseCode());
+        assertEquals(400, post("amount=2&services=-1", "").getResponseCode());
+        assertEquals(400, post("amount=2", "{ \"minDemand\": { \"value\": 10 } }").getResponseCode());
+        assertEquals(400, post("amount=2", "{ \"minDemand\": [ 10 ] }").getResponseCode());
+        assertEquals(400, post("amount=2", "{ \"minDemand\": ten }").getResponseCode());
+        assertEquals(400, post("amount=2", "{ \"minDemand\": 10 \"maxDemand\": 60 }").getResponseCode());
+        assertEquals(400, post("amount=2", "{ \"minDemand\": 10 } trailing").getResponseCode());
+    }
+
+    @Test
+    public void rejectsOtherMethods() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/generate").openConnection();
+        assertEquals(405, connection.getResponseCode());
+    }
+
+}
@@ -0,0 +1,88 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InstanceCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static InstanceSampler sampler(Overrides overrides, Date creationDate) {
+        return new InstanceSampler(Configuration.load((String) null), overrides, creationDate);
+    }
+
+    private static InstanceSink.Content bytes(int size) {
+        return channel -> channel.write(ByteBuffer.allocate(size));
+    }
+
+    @Test
+    public void keysEverythingTheInstancesDependOnButTheCreationDate() {
+        Batch batch = Batch.builder().build();
+        InstanceSampler sampler = sampler(Overrides.builder().build(), new Date(1700000000000L));
+        String batchKey = InstanceCache.batchKey(sampler, batch);
+        assertEquals(batchKey, InstanceCache.batchKey(sampler(Overrides.builder().build(), new Date(1800000000000L)), batch));
+        assertEquals(batchKey, InstanceCache.batchKey(sampler, batch.toBuilder().seed(5).amount(70).threads(3).build()));
+
+        Set<String> keys = new HashSet<>();
+        keys.add(batchKey);
+        keys.add(InstanceCache.batchKey(sampler(Overrides.builder().services(10).build(), new Date(1700000000000L)), batch));
+        keys.add(InstanceCache.batchKey(sampler, batch.toBuilder().format(InstanceFormat.BINARY).build()));
+        keys.add(InstanceCache.batchKey(sampler, batch.toBuilder().feasibility(Feasibility.REJECT).build()));
+        assertEquals(4, keys.size());
+
+        assertEquals(InstanceCache.key(batchKey, 1), InstanceCache.key(batchKey, 1));
+        assertFalse(InstanceCache.key(batchKey, 1).equals(InstanceCache.key(batchKey, 2)));
+    }
+
+    @Test
+    public void storesInstancesAndStatistics() throws Exception {
+        InstanceCache cache = new InstanceCache(folder.getRoot().toPath(), Long.MAX_VALUE);
+        String key = InstanceCache.key("batch", 1);
+        assertNull(cache.get(key, InstanceFormat.OPL));
+        assertNull(cache.getStatistics(key));
+
+        Path stored = cache.put(key, InstanceFormat.OPL, channel -> channel.write(StandardCharsets.UTF_8.encode("instance")));
+        cache.putStatistics(key, "1,0,statistics");
+        assertEquals(stored, cache.get(key, InstanceFormat.OPL));
+        assertEquals("instance", new String(Files.readAllBytes(stored), StandardCharsets.UTF_8));
+        assertEquals("1,0,statistics", cache.getStatistics(key));
+        assertNull(cache.get(key, InstanceFormat.BINARY));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedEntries() throws Exception {
+        InstanceCache cache = new InstanceCache(folder.getRoot().toPath(), 2500);
+        Path [] entries = new Path[4];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = cache.put(InstanceCache.key("batch", i), InstanceFormat.OPL, bytes(1000));
+            Files.setLastModifiedTime(entries[i], FileTime.fromMillis(1_000_000L * (i + 1)));
+        }
+        // Using the oldest entry makes it the most recent one
+        assertNotNull(cache.get(InstanceCache.key("batch", 0), InstanceFormat.OPL));
+
+        assertEquals(2000, cache.evict());
+        assertTrue(Files.exists(entries[0]));
+        assertFalse(Files.exists(entries[1]));
+        assertFalse(Files.exists(entries[2]));
+        assertTrue(Files.exists(entries[3]));
+        assertEquals(0, cache.evict());
+    }
+
+}
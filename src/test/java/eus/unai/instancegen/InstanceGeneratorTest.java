@@ -0,0 +1,41 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class InstanceGeneratorTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path generate(String name, int threads) throws IOException, ExecutionException, InterruptedException {
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), CREATION_DATE);
+        Path directory = folder.getRoot().toPath().resolve(name);
+        try (InstanceSink sink = new FileSink(directory, InstanceFormat.OPL)) {
+            InstanceGenerator.generate(sampler, sink, Batch.builder().seed(42).amount(16).threads(threads).build());
+        }
+        return directory;
+    }
+
+    @Test
+    public void givesTheSameInstancesWhateverTheAmountOfThreads() throws Exception {
+        Path single = generate("single", 1);
+        Path parallel = generate("parallel", 4);
+        for (int i = 0; i < 16; i++) {
+            String name = InstanceFormat.OPL.fileName(i);
+            assertArrayEquals(name, Files.readAllBytes(single.resolve(name)), Files.readAllBytes(parallel.resolve(name)));
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InstanceInspectorTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+    private final InstanceInspector inspector = new InstanceInspector(2, new PrintStream(printed, true));
+
+    private static Instance sample(long seed, Date creationDate) {
+        return new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), creationDate).sample(seed);
+    }
+
+    private static void write(Path file, Instance instance) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, instance.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void corrupt(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, "nServices = ;".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> lines() {
+        return Arrays.asList(new String(printed.toByteArray(), StandardCharsets.UTF_8).split("\\R"));
+    }
+
+    @Test
+    public void reportsTheUnreadableFilesOfTheStats() throws IOException, ExecutionException, InterruptedException {
+        Path root = folder.getRoot().toPath();
+        write(root.resolve("data0.dat"), sample(0, CREATION_DATE));
+        write(root.resolve("data1.dat"), sample(1, CREATION_DATE));
+        corrupt(root.resolve("data2.dat"));
+
+        assertEquals(1, inspector.stats(InstanceInspector.find(Collections.singletonList(root))));
+        List<String> lines = lines();
+        assertTrue(lines.get(0), lines.get(0).startsWith(root.resolve("data2.dat") + ": cannot be read: "));
+        assertEquals("attribute,count,mean,stddev,min,max", lines.get(1));
+        // Only the two readable instances are summarized
+        assertTrue(lines.get(2), lines.get(2).startsWith("nServices,2,"));
+    }
+
+    @Test
+    public void keepsScanningAfterAFileFailsToOpen() throws IOException, ExecutionException, InterruptedException {
+        Path root = folder.getRoot().toPath();
+        Path missing = root.resolve("data0.dat");
+        write(root.resolve("data1.dat"), sample(1, CREATION_DATE));
+        List<Path> files = Arrays.asList(missing, root.resolve("data1.dat"));
+
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), CREATION_DATE);
+        assertEquals(1, inspector.validate(files, sampler));
+        assertEquals(1, inspector.stats(files));
+        List<String> lines = lines();
+        assertEquals(missing + ": cannot be read: NoSuchFileException: " + missing, lines.get(0));
+        assertEquals("2 instances, 1 invalid", lines.get(1));
+        assertEquals(missing + ": cannot be read: NoSuchFileException: " + missing, lines.get(2));
+        assertTrue(lines.get(4), lines.get(4).startsWith("nServices,1,"));
+    }
+
+    @Test
+    public void reportsTheChangedMissingAndUnreadableFilesOfTheDiff() throws IOException, ExecutionException, InterruptedException {
+        Path before = folder.newFolder("before").toPath();
+        Path after = folder.newFolder("after").toPath();
+        write(before.resolve("data0.dat"), sample(0, CREATION_DATE));
+        write(after.resolve("data0.dat"), sample(0, CREATION_DATE));
+        // Only the creation date differs, so it holds the same instance
+        write(before.resolve("data1.dat"), sample(1, CREATION_DATE));
+        write(after.resolve("data1.dat"), sample(1, new Date(1800000000000L)));
+        write(before.resolve("data2.dat"), sample(2, CREATION_DATE));
+        write(after.resolve("data2.dat"), sample(3, CREATION_DATE));
+        write(before.resolve("data3.dat"), sample(4, CREATION_DATE));
+        corrupt(after.resolve("data3.dat"));
+        write(before.resolve("data4.dat"), sample(5, CREATION_DATE));
+        write(after.resolve("nested/data5.dat"), sample(6, CREATION_DATE));
+
+        assertEquals(4, inspector.diff(before, after));
+        List<String> lines = lines();
+        assertTrue(lines.get(0), lines.get(0).startsWith("data2.dat: "));
+        assertTrue(lines.get(1), lines.get(1).startsWith("data3.dat: cannot be read: "));
+        assertEquals("data4.dat: only in " + before, lines.get(2));
+        assertEquals(Paths.get("nested", "data5.dat") + ": only in " + after, lines.get(3));
+        assertEquals("4 instances in both, 4 changed, missing or unreadable", lines.get(4));
+        assertEquals("attribute,mean before,mean after,change,stddev before,stddev after", lines.get(5));
+    }
+
+    @Test
+    public void summarizesIdenticalDirectoriesAlike() throws IOException, ExecutionException, InterruptedException {
+        Path before = folder.newFolder("before").toPath();
+        Path after = folder.newFolder("after").toPath();
+        for (long seed = 0; seed < 4; seed++) {
+            write(before.resolve("data" + seed + ".dat"), sample(seed, CREATION_DATE));
+            write(after.resolve("data" + seed + ".dat"), sample(seed, CREATION_DATE));
+        }
+
+        assertEquals(0, inspector.diff(before, after));
+        List<String> lines = lines();
+        assertEquals("4 instances in both, 0 changed, missing or unreadable", lines.get(0));
+        for (String line : lines.subList(2, lines.size())) {
+            String [] columns = line.split(",");
+            assertEquals(line, columns[1], columns[2]);
+            assertEquals(line, columns[4], columns[5]);
+            assertFalse(line, columns[1].isEmpty());
+        }
+    }
+
+}
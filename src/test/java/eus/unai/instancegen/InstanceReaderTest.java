@@ -0,0 +1,69 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InstanceReaderTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Instance sample(Overrides overrides, long seed) {
+        return new InstanceSampler(Configuration.load((String) null), overrides, CREATION_DATE).sample(seed);
+    }
+
+    @Test
+    public void readsBackTheWrittenInstance() {
+        for (long seed = 0; seed < 20; seed++) {
+            Instance instance = sample(Overrides.builder().build(), seed);
+            InstanceReader reader = new InstanceReader(BinaryInstanceWriter.encode(instance));
+            assertTrue(reader.verifyChecksum());
+            assertEquals(instance.getNServices(), reader.getSt().remaining());
+            assertEquals(instance, reader.toInstance());
+        }
+    }
+
+    @Test
+    public void readsBackAnEmptyInstance() {
+        Instance instance = sample(Overrides.builder().services(0).buses(0).drivers(0).maxBuses(0).build(), 1);
+        InstanceReader reader = new InstanceReader(BinaryInstanceWriter.encode(instance));
+        assertTrue(reader.verifyChecksum());
+        assertEquals(instance, reader.toInstance());
+    }
+
+    @Test
+    public void readsBackAMappedFile() throws IOException {
+        Instance instance = sample(Overrides.builder().services(5000).build(), 3);
+        Path file = folder.getRoot().toPath().resolve("data0.bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            BinaryInstanceWriter.write(instance, channel);
+        }
+        InstanceReader reader = InstanceReader.open(file);
+        assertTrue(reader.verifyChecksum());
+        assertEquals(instance, reader.toInstance());
+    }
+
+    @Test
+    public void detectsACorruptedColumn() {
+        Instance instance = sample(Overrides.builder().build(), 5);
+        ByteBuffer buffer = BinaryInstanceWriter.encode(instance);
+        int last = buffer.limit() - 1;
+        buffer.put(last, (byte) (buffer.get(last) ^ 1));
+        assertFalse(new InstanceReader(buffer).verifyChecksum());
+    }
+
+}
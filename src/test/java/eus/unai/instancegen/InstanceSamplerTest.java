@@ -0,0 +1,154 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InstanceSamplerTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static InstanceSampler sampler(Overrides overrides) {
+        return new InstanceSampler(Configuration.load((String) null), overrides, CREATION_DATE);
+    }
+
+    @Test
+    public void gathersTheSameStatisticsWhileStreaming() throws IOException {
+        for (Overrides overrides : new Overrides [] { Overrides.builder().build(), Overrides.builder().routes(5).build() }) {
+            InstanceSampler sampler = sampler(overrides);
+            for (long seed = 0; seed < 20; seed++) {
+                Instance instance = sampler.sample(seed);
+                StringWriter out = new StringWriter();
+                InstanceWriter writer = new InstanceWriter(out);
+                InstanceStatistics statistics = sampler.streamWithStatistics(seed, writer);
+                writer.flush();
+                assertEquals(instance.toString(), out.toString());
+                assertEquals(sampler.statistics(instance).toCsv(), statistics.toCsv());
+                assertEquals(sampler.statistics(seed).toCsv(), statistics.toCsv());
+            }
+        }
+    }
+
+    @Test
+    public void streamsTheInstancesSampledInMemory() throws IOException {
+        Properties distributions = new Properties();
+        distributions.setProperty("demand.dist", "normal(40, 15)");
+        distributions.setProperty("capacity.dist", "discrete(55:3, 80:5, 99:1)");
+        distributions.setProperty("maxHours.dist", "poisson(7)");
+        distributions.setProperty("eurosPerMin.dist", "normal(0.4, 0.1)");
+        Configuration [] configurations = { Configuration.load((String) null), Configuration.load(distributions) };
+        Overrides [] overrides = { Overrides.builder().build(), Overrides.builder().services(20_000).buses(300).drivers(400).build(),
+                Overrides.builder().routes(12).build(), Overrides.builder().services(0).buses(0).drivers(0).maxBuses(0).build() };
+        for (Configuration conf : configurations) {
+            for (Overrides instanceOverrides : overrides) {
+                InstanceSampler sampler = new InstanceSampler(conf, instanceOverrides, CREATION_DATE);
+                for (long seed = 0; seed < 5; seed++) {
+                    StringWriter out = new StringWriter();
+                    InstanceWriter writer = new InstanceWriter(out);
+                    sampler.stream(seed, writer);
+                    writer.flush();
+                    assertEquals(sampler.sample(seed).toString(), out.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fillsTheValuesOfTheSuppliers() {
+        for (Overrides overrides : new Overrides [] { Overrides.builder().services(5000).build(), Overrides.builder().services(5000).routes(8).build() }) {
+            InstanceSampler sampler = sampler(overrides);
+            for (long seed = 0; seed < 5; seed++) {
+                Instance instance = sampler.sample(seed);
+                Timetable timetable = sampler.timetable(seed);
+                assertColumn(instance.getSt(), sampler.startingTimes(seed, timetable));
+                assertColumn(instance.getSdt(), sampler.durationsInMinutes(seed, timetable));
+                assertColumn(instance.getSdd(), sampler.durationsInKilometers(seed, timetable));
+                assertColumn(instance.getDem(), sampler.demands(seed, timetable));
+                assertColumn(instance.getCap(), sampler.capacities(seed));
+                assertColumn(instance.getMaxHours(), sampler.maxHours(seed));
+                DoubleSupplier eurosPerMinute = sampler.eurosPerMinute(seed);
+                for (double value : instance.getEurosMin()) {
+                    assertEquals(value, eurosPerMinute.getAsDouble(), 0);
+                }
+            }
+        }
+    }
+
+    private static void assertColumn(int [] column, IntSupplier supplier) {
+        for (int value : column) {
+            assertEquals(value, supplier.getAsInt());
+        }
+    }
+
+    @Test
+    public void rejectsNegativeOverrides() {
+        Overrides [] negatives = {
+                Overrides.builder().services(-3).build(), Overrides.builder().buses(-1).build(),
+                Overrides.builder().drivers(-1).build(), Overrides.builder().maxBuses(-1).build(),
+                Overrides.builder().baseMinutes(-1).build()
+        };
+        for (int i = 0; i < negatives.length; i++) {
+            try {
+                sampler(negatives[i]);
+                fail("accepted the negative " + Overrides.PARAMETERS.get(i));
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(Overrides.PARAMETERS.get(i)));
+            }
+        }
+        assertEquals(0, sampler(Overrides.builder().services(0).buses(0).drivers(0).maxBuses(0).baseMinutes(0).build()).sample(1).getNServices());
+    }
+
+    @Test
+    public void derivesRetrySeedsApartFromTheColumnSeeds() {
+        for (long seed = 0; seed < 1000; seed++) {
+            Set<Long> columns = new HashSet<>();
+            for (int column = 0; column < 16; column++) {
+                columns.add(InstanceSampler.seedFor(seed, column));
+            }
+            for (int attempt = 1; attempt <= 16; attempt++) {
+                assertFalse(columns.contains(InstanceSampler.retrySeed(seed, attempt)));
+            }
+        }
+    }
+
+    @Test
+    public void writesTheSameStatisticsWhenStreamed() throws Exception {
+        Path inMemory = folder.getRoot().toPath().resolve("memory.csv");
+        Path streamed = folder.getRoot().toPath().resolve("stream.csv");
+        for (Feasibility feasibility : new Feasibility [] { Feasibility.TAG, Feasibility.REJECT }) {
+            Batch batch = Batch.builder().seed(7).amount(10).threads(2).feasibility(feasibility).build();
+            InstanceSampler sampler = sampler(Overrides.builder().build());
+            try (InstanceSink sink = new ZipSink(new ByteArrayOutputStream(), InstanceFormat.OPL, CREATION_DATE)) {
+                InstanceGenerator.generate(sampler, sink, batch.toBuilder().statistics(inMemory).build());
+            }
+            try (InstanceSink sink = new ZipSink(new ByteArrayOutputStream(), InstanceFormat.OPL, CREATION_DATE)) {
+                InstanceGenerator.generate(sampler, sink, batch.toBuilder().statistics(streamed).stream(true).build());
+            }
+            List<String> expected = Files.readAllLines(inMemory);
+            assertEquals(11, expected.size());
+            assertEquals(expected, Files.readAllLines(streamed));
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package eus.unai.instancegen;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class InstanceWriterTest {
+
+    private static String decimal(double value) throws IOException {
+        StringWriter out = new StringWriter();
+        InstanceWriter writer = new InstanceWriter(out);
+        writer.appendDecimal(value);
+        writer.flush();
+        return out.toString();
+    }
+
+    private static void assertFormattedAsDecimalFormat(double value) throws IOException {
+        assertEquals("formatting " + value, new DecimalFormat("#.##").format(value), decimal(value));
+    }
+
+    @Test
+    public void roundsRandomDecimalsAsDecimalFormat() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 200_000; i++) {
+            double magnitude = Math.pow(10, random.nextInt(-3, 13));
+            assertFormattedAsDecimalFormat((random.nextDouble() * 2 - 1) * magnitude);
+        }
+    }
+
+    @Test
+    public void roundsTiesAsDecimalFormat() throws IOException {
+        // Thousandths ending in 5 are ties in decimal, but mostly not in binary
+        for (int thousandths = -200_000; thousandths <= 200_000; thousandths++) {
+            assertFormattedAsDecimalFormat(thousandths / 1000.0);
+        }
+        // Exact binary ties round to the even hundredth
+        for (double tie : new double [] { 0.125, 0.375, 0.625, 0.875, 1.125, 1024.375, -0.125, -2.625 }) {
+            assertFormattedAsDecimalFormat(tie);
+        }
+    }
+
+    @Test
+    public void formatsSpecialDecimalsAsDecimalFormat() throws IOException {
+        for (double value : new double [] { 0, -0.0, -0.001, 0.004999, 0.005, 0.995, 9.995, 99.999,
+                Double.MIN_VALUE, 1e12 - 0.005, 1e12, 1e15 + 0.25, Double.MAX_VALUE, -Double.MAX_VALUE }) {
+            assertFormattedAsDecimalFormat(value);
+        }
+    }
+
+    @Test
+    public void writesInstancesAsTheOriginalToString() {
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), new Date(1700000000000L));
+        for (long seed = 0; seed < 20; seed++) {
+            Instance instance = sampler.sample(seed);
+            assertEquals(originalToString(instance), instance.toString());
+        }
+    }
+
+    @Test
+    public void writesEmptyInstancesAsTheOriginalToString() {
+        Overrides empty = Overrides.builder().services(0).buses(0).drivers(0).maxBuses(0).build();
+        Instance instance = new InstanceSampler(Configuration.load((String) null), empty, new Date(1700000000000L)).sample(1);
+        assertEquals(originalToString(instance), instance.toString());
+    }
+
+    // Instance.toString() as it was before InstanceWriter
+    private static String originalToString(Instance instance) {
+        DecimalFormat df = new DecimalFormat("#.##");
+        return "" +
+                "/*********************************************\n" +
+                " * OPL 12.8.0.0 Data\n" +
+                " * Author: InstanceGenerator by unai.perez.mendizabal and ferran.torres.morales\n" +
+                " * Creation Date: " + instance.getCreationDate().toString() + "\n" +
+                " *********************************************/\n" +
+                "\n" +
+                " nServices = " + instance.getNServices() + ";\n" +
+                " nBuses = " + instance.getNBuses() + ";\n" +
+                " nDrivers = " + instance.getNDrivers() + ";\n" +
+                "\n" +
+                " maxBuses = " + instance.getMaxBuses() + ";\n" +
+                " BM = " + instance.getBM() + ";\n" +
+                " CBM = " + df.format(instance.getCBM()) + ";\n" +
+                " CEM = " + df.format(instance.getCEM()) + ";\n" +
+                "\n" +
+                " st = [ " + Arrays.stream(instance.getSt()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                " sdt = [ " + Arrays.stream(instance.getSdt()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                " sdd = [ " + Arrays.stream(instance.getSdd()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                " dem = [ " + Arrays.stream(instance.getDem()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                "\n" +
+                " cap = [ " + Arrays.stream(instance.getCap()).mapToObj(Integer::toString).collect(Collectors.joining(" ")) + " ];\n" +
+                " euros_min = [" + Arrays.stream(instance.getEurosMin()).mapToObj(df::format).collect(Collectors.joining(" ")) + " ];\n" +
+                " euros_km = [" + Arrays.stream(instance.getEurosKm()).mapToObj(df::format).collect(Collectors.joining(" ")) + " ];\n" +
+                "\n" +
+                " maxHours = [ " + Arrays.stream(instance.getMaxHours()).mapToObj(df::format).collect(Collectors.joining(" ")) + " ];\n";
+    }
+
+}
@@ -0,0 +1,52 @@
+package eus.unai.instancegen;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IntRangeTest {
+
+    @Test
+    public void truncatesDistributionsWithoutPilingUpOnTheBounds() {
+        IntRange range = IntRange.of("demand", 0, 100);
+        IntSampler sampler = range.with(Distributions.normal(0, 10));
+        SplittableRandom random = new SplittableRandom(1);
+        int [] counts = new int[100];
+        for (int i = 0; i < 100_000; i++) {
+            int value = sampler.sample(random);
+            assertTrue(value + " is out of " + range, range.contains(value));
+            counts[value]++;
+        }
+        // The half normal, discretized: P(0) = P(-0.5 < X < 0.5) / P(X > -0.5) is about 7.7%, not the 52% of clamping
+        assertEquals(0.077, counts[0] / 100_000.0, 0.01);
+        assertTrue(counts[0] > counts[20]);
+    }
+
+    @Test
+    public void neverDrawsTheExcludedMaximum() {
+        IntRange range = IntRange.of("capacity", 35, 100);
+        IntSampler sampler = range.with(Distributions.parse("discrete(55:3, 80:5, 100:1)"));
+        SplittableRandom random = new SplittableRandom(2);
+        int [] counts = new int[101];
+        for (int i = 0; i < 80_000; i++) {
+            counts[sampler.sample(random)]++;
+        }
+        assertEquals(0, counts[99] + counts[100]);
+        assertEquals(3.0 / 8, counts[55] / 80_000.0, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDistributionsThatBarelyReachTheRange() {
+        IntRange.of("demand", 0, 100).with(Distributions.normal(1000, 10));
+    }
+
+    @Test
+    public void drawsTheOnlyValueOfEmptySpans() {
+        IntSampler sampler = IntRange.of("routes", 4, 4).with(Distributions.normal(1000, 10));
+        assertEquals(4, sampler.sample(new SplittableRandom(3)));
+    }
+
+}
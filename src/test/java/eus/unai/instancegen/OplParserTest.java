@@ -0,0 +1,74 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class OplParserTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Instance sample(Overrides overrides, long seed) {
+        return new InstanceSampler(Configuration.load((String) null), overrides, CREATION_DATE).sample(seed);
+    }
+
+    private static Instance parse(String text) {
+        return OplParser.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void parsesTheWrittenInstance() {
+        for (long seed = 0; seed < 20; seed++) {
+            Instance instance = sample(Overrides.builder().build(), seed);
+            Instance parsed = parse(instance.toString());
+            assertEquals(instance.getCreationDate(), parsed.getCreationDate());
+            assertEquals(instance.getNServices(), parsed.getNServices());
+            assertEquals(instance.getMaxBuses(), parsed.getMaxBuses());
+            assertArrayEquals(instance.getSt(), parsed.getSt());
+            assertArrayEquals(instance.getSdt(), parsed.getSdt());
+            assertArrayEquals(instance.getSdd(), parsed.getSdd());
+            assertArrayEquals(instance.getDem(), parsed.getDem());
+            assertArrayEquals(instance.getCap(), parsed.getCap());
+            assertArrayEquals(instance.getMaxHours(), parsed.getMaxHours());
+            // The decimals are rounded to hundredths in the file
+            assertArrayEquals(instance.getEurosMin(), parsed.getEurosMin(), 0.005);
+            assertEquals(instance.getCEM(), parsed.getCEM(), 0.005);
+            assertEquals(instance.toString(), parsed.toString());
+        }
+    }
+
+    @Test
+    public void parsesAnEmptyInstance() {
+        Instance instance = sample(Overrides.builder().services(0).buses(0).drivers(0).maxBuses(0).build(), 1);
+        assertEquals(instance.toString(), parse(instance.toString()).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMalformedFiles() {
+        parse(" nServices = ;\n");
+    }
+
+    @Test
+    public void convertsToBinaryAndBackIntoTheSameFile() throws IOException {
+        Path opl = folder.getRoot().toPath().resolve("data0.dat");
+        Files.write(opl, sample(Overrides.builder().build(), 9).toString().getBytes(StandardCharsets.UTF_8));
+        Path binary = InstanceGenerator.convert(opl, folder.getRoot().toPath().resolve("binary"));
+        assertEquals("data0.bin", binary.getFileName().toString());
+        Path back = InstanceGenerator.convert(binary, folder.getRoot().toPath().resolve("opl"));
+        assertArrayEquals(Files.readAllBytes(opl), Files.readAllBytes(back));
+    }
+
+}
@@ -0,0 +1,56 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PackedSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void indexesEveryInstanceWhateverItsLength() throws Exception {
+        Configuration conf = Configuration.load((String) null);
+        Overrides overrides = Overrides.builder().services(300_000).build();
+        InstanceSampler sampler = new InstanceSampler(conf, overrides, new Date(1700000000000L));
+        Path directory = folder.getRoot().toPath();
+        try (InstanceSink sink = new PackedSink(directory, 4)) {
+            InstanceGenerator.generate(sampler, sink, Batch.builder().seed(3).amount(4).threads(4).stream(true).build());
+        }
+
+        try (PackedInstances instances = new PackedInstances(directory)) {
+            assertEquals(4, instances.size());
+            for (int i = 0; i < 4; i++) {
+                ByteBuffer instance = instances.get(i);
+                assertEquals(sampler.sample(InstanceSampler.seedFor(3, i)).toString(), StandardCharsets.UTF_8.decode(instance).toString());
+            }
+        }
+    }
+
+    @Test
+    public void givesTheSamePackWhateverTheAmountOfThreads() throws Exception {
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), new Date(1700000000000L));
+        Path [] directories = new Path[2];
+        int [] threads = { 1, 8 };
+        for (int t = 0; t < threads.length; t++) {
+            directories[t] = folder.getRoot().toPath().resolve("threads" + threads[t]);
+            try (InstanceSink sink = new PackedSink(directories[t], 64)) {
+                InstanceGenerator.generate(sampler, sink, Batch.builder().seed(3).amount(64).threads(threads[t]).build());
+            }
+        }
+        for (String file : new String [] { PackedSink.PACK_FILE, PackedSink.INDEX_FILE }) {
+            assertArrayEquals(file, Files.readAllBytes(directories[0].resolve(file)), Files.readAllBytes(directories[1].resolve(file)));
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SweepTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void expandsTheGridWithTheLastParameterVaryingFastest() {
+        Sweep sweep = new Sweep(Arrays.asList("services=100,200", "buses=10:30:10"), 5);
+        assertEquals(Arrays.asList("services", "buses"), sweep.getParameters());
+        List<Map<String, String>> cells = sweep.cells(1);
+        assertEquals(6, cells.size());
+        String [][] expected = { { "100", "10" }, { "100", "20" }, { "100", "30" }, { "200", "10" }, { "200", "20" }, { "200", "30" } };
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals(expected[k][0], cells.get(k).get("services"));
+            assertEquals(expected[k][1], cells.get(k).get("buses"));
+        }
+    }
+
+    @Test
+    public void countsTheCellsWithoutExpandingThem() {
+        assertEquals(6, new Sweep(Arrays.asList("services=100,200", "buses=10:30:10"), 5).size());
+        assertEquals(12, new Sweep(Arrays.asList("services=100,200", "buses=10:30:10", "drivers=lhs(1,9)"), 2).size());
+        Sweep sweep = new Sweep(Arrays.asList("basePay=0.1:0.3:0.1", "drivers=lhs(1,9)"), 7);
+        assertEquals(sweep.cells(3).size(), sweep.size());
+    }
+
+    @Test
+    public void includesTheLastValueOfDecimalRanges() {
+        List<Map<String, String>> cells = new Sweep(Collections.singletonList("basePay=0.1:0.3:0.1"), 1).cells(1);
+        assertEquals(3, cells.size());
+        assertEquals(0.3, Double.parseDouble(cells.get(2).get("basePay")), 1e-9);
+    }
+
+    @Test
+    public void visitsEveryStratumOfTheHypercubeOnce() {
+        int samples = 50;
+        Sweep sweep = new Sweep(Arrays.asList("services=1,2", "drivers=lhs(0,99)", "basePay=lhs(0,1)"), samples);
+        List<Map<String, String>> cells = sweep.cells(42);
+        assertEquals(2 * samples, cells.size());
+        Set<Integer> drivers = new HashSet<>();
+        Set<Integer> basePays = new HashSet<>();
+        for (Map<String, String> cell : cells.subList(0, samples)) {
+            drivers.add(Integer.parseInt(cell.get("drivers")) / 2);
+            basePays.add((int) (Double.parseDouble(cell.get("basePay")) * samples));
+        }
+        assertEquals(samples, drivers.size());
+        assertEquals(samples, basePays.size());
+        // Every grid cell is crossed with the same points
+        for (int i = 0; i < samples; i++) {
+            assertEquals(cells.get(i).get("drivers"), cells.get(samples + i).get("drivers"));
+        }
+        assertEquals(cells, sweep.cells(42));
+        assertFalse(cells.equals(sweep.cells(43)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownParameters() {
+        new Sweep(Collections.singletonList("colour=1,2"), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyRanges() {
+        new Sweep(Collections.singletonList("services=10:5:1"), 1);
+    }
+
+    @Test
+    public void generatesEveryCellAsItWouldBeGeneratedAlone() throws Exception {
+        Configuration conf = Configuration.load((String) null);
+        Sweep sweep = new Sweep(Arrays.asList("services=50,100", "buses=lhs(5,20)"), 3);
+        Path output = folder.getRoot().toPath();
+        Batch batch = Batch.builder().seed(11).amount(4).threads(3).feasibility(Feasibility.TAG)
+                .statistics(output.resolve("statistics.csv")).build();
+        InstanceGenerator.sweep(conf, Overrides.builder().build(), sweep, CREATION_DATE, output, "files", batch);
+
+        List<String> manifest = Files.readAllLines(output.resolve("manifest.csv"));
+        List<Map<String, String>> cells = sweep.cells(11);
+        assertEquals(cells.size() + 1, manifest.size());
+        for (int k = 0; k < cells.size(); k++) {
+            String [] row = manifest.get(k + 1).split(",");
+            long seed = Long.parseLong(row[2]);
+            assertEquals(InstanceGenerator.cellSeed(11, k), seed);
+            Overrides overrides = Overrides.builder().build()
+                    .with("services", cells.get(k).get("services"))
+                    .with("buses", cells.get(k).get("buses"));
+            InstanceSampler sampler = new InstanceSampler(conf, overrides, CREATION_DATE);
+            Path directory = output.resolve("cell" + k);
+            for (int i = 0; i < 4; i++) {
+                assertEquals(sampler.sample(InstanceSampler.seedFor(seed, i)).toString(),
+                        new String(Files.readAllBytes(directory.resolve("data" + i + ".dat")), StandardCharsets.UTF_8));
+            }
+            assertEquals(5, Files.readAllLines(directory.resolve("statistics.csv")).size());
+        }
+    }
+
+    @Test
+    public void derivesTheCellSeedsApartFromTheInstanceSeeds() {
+        Set<Long> instances = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            instances.add(InstanceSampler.seedFor(11, i));
+        }
+        for (int k = 0; k < 100; k++) {
+            assertFalse(instances.contains(InstanceGenerator.cellSeed(11, k)));
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package eus.unai.instancegen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TarGzSinkTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesDatedEntriesOfAnyLength() throws Exception {
+        Overrides overrides = Overrides.builder().services(300_000).build();
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), overrides, CREATION_DATE);
+        Path file = folder.getRoot().toPath().resolve("instances.tar.gz");
+        try (InstanceSink sink = new TarGzSink(file, InstanceFormat.OPL, CREATION_DATE)) {
+            InstanceGenerator.generate(sampler, sink, Batch.builder().seed(7).amount(2).stream(true).build());
+        }
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            for (int i = 0; i < 2; i++) {
+                byte [] header = new byte[512];
+                in.readFully(header);
+                assertEquals("data" + i + ".dat", field(header, 0, 100));
+                assertEquals(CREATION_DATE.getTime() / 1000, Long.parseLong(field(header, 136, 12), 8));
+                int size = Integer.parseInt(field(header, 124, 12), 8);
+                byte [] content = new byte[size];
+                in.readFully(content);
+                assertEquals(sampler.sample(InstanceSampler.seedFor(7, i)).toString(), new String(content, StandardCharsets.UTF_8));
+                skip(in, (512 - size % 512) % 512);
+            }
+        }
+    }
+
+    @Test
+    public void givesTheSameArchiveWhateverTheAmountOfThreads() throws Exception {
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), Overrides.builder().build(), CREATION_DATE);
+        byte [] [] archives = new byte[2][];
+        int [] threads = { 1, 8 };
+        for (int t = 0; t < threads.length; t++) {
+            Path file = folder.getRoot().toPath().resolve("instances" + threads[t] + ".tar.gz");
+            try (InstanceSink sink = new TarGzSink(file, InstanceFormat.OPL, CREATION_DATE)) {
+                InstanceGenerator.generate(sampler, sink, Batch.builder().seed(7).amount(64).threads(threads[t]).build());
+            }
+            archives[t] = Files.readAllBytes(file);
+        }
+        assertArrayEquals(archives[0], archives[1]);
+    }
+
+    private static String field(byte [] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.US_ASCII).trim();
+    }
+
+    private static void skip(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            bytes -= in.skip(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package eus.unai.instancegen;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimetableTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    @Test
+    public void keepsTheBusiestTripsWithinTheDemandRange() {
+        Configuration conf = Configuration.load((String) null);
+        InstanceSampler sampler = new InstanceSampler(conf, Overrides.builder().services(20_000).routes(40).build(), CREATION_DATE);
+        int trips = 0;
+        int atMaximum = 0;
+        int atMinimum = 0;
+        for (long seed = 0; seed < 20; seed++) {
+            for (int demand : sampler.sample(seed).getDem()) {
+                assertTrue(demand >= conf.getMinDemand() && demand < conf.getMaxDemand());
+                trips++;
+                atMaximum += demand == conf.getMaxDemand() - 1 ? 1 : 0;
+                atMinimum += demand == conf.getMinDemand() ? 1 : 0;
+            }
+        }
+        // Only the routes drawn with the greatest demand reach it, at their busiest trips
+        assertTrue("share at the maximum " + (double) atMaximum / trips, atMaximum < trips * 0.01);
+        assertTrue("share at the minimum " + (double) atMinimum / trips, atMinimum < trips * 0.05);
+    }
+
+    @Test
+    public void scalesTheBaseDemandsDownByThePeak() {
+        IntRange demands = IntRange.of("demand", 30, 91);
+        double [] baseDemands = Timetable.baseDemands(demands, new double [] { 1, 1.2, 1.5, 1.1 });
+        assertEquals(30, baseDemands[0], 1e-9);
+        assertEquals(60, baseDemands[1], 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDemandRangesTooNarrowForThePeak() {
+        Properties properties = new Properties();
+        properties.setProperty("minDemand", "60");
+        properties.setProperty("maxDemand", "80");
+        new InstanceSampler(Configuration.load(properties), Overrides.builder().routes(10).build(), CREATION_DATE);
+    }
+
+    @Test
+    public void acceptsNarrowDemandRangesWithoutRoutes() {
+        Properties properties = new Properties();
+        properties.setProperty("minDemand", "60");
+        properties.setProperty("maxDemand", "80");
+        new InstanceSampler(Configuration.load(properties), Overrides.builder().build(), CREATION_DATE);
+    }
+
+}
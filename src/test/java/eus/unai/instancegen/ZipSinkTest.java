@@ -0,0 +1,81 @@
+package eus.unai.instancegen;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ZipSinkTest {
+
+    private final static Date CREATION_DATE = new Date(1700000000000L);
+
+    private static byte [] zip(Overrides overrides, Batch batch) throws IOException, ExecutionException, InterruptedException {
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), overrides, CREATION_DATE);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (InstanceSink sink = new ZipSink(archive, InstanceFormat.OPL, CREATION_DATE)) {
+            InstanceGenerator.generate(sampler, sink, batch);
+        }
+        return archive.toByteArray();
+    }
+
+    @Test
+    public void datesTheEntriesWithTheCreationDate() throws Exception {
+        byte [] archive = zip(Overrides.builder().build(), Batch.builder().seed(42).amount(3).build());
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(CREATION_DATE.getTime(), in.getNextEntry().getTime());
+            }
+        }
+    }
+
+    @Test
+    public void givesTheSameArchiveForTheSameSeed() throws Exception {
+        Batch batch = Batch.builder().seed(42).amount(5).build();
+        byte [] first = zip(Overrides.builder().build(), batch);
+        Thread.sleep(2000);
+        assertArrayEquals(first, zip(Overrides.builder().build(), batch));
+    }
+
+    @Test
+    public void givesTheSameArchiveWhateverTheAmountOfThreads() throws Exception {
+        byte [] single = zip(Overrides.builder().build(), Batch.builder().seed(42).amount(64).threads(1).build());
+        assertArrayEquals(single, zip(Overrides.builder().build(), Batch.builder().seed(42).amount(64).threads(8).build()));
+    }
+
+    @Test
+    public void writesStreamedInstancesLargerThanTheMemoryLimit() throws Exception {
+        Overrides overrides = Overrides.builder().services(300_000).build();
+        byte [] archive = zip(overrides, Batch.builder().seed(42).amount(2).threads(2).stream(true).build());
+        InstanceSampler sampler = new InstanceSampler(Configuration.load((String) null), overrides, CREATION_DATE);
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (int i = 0; i < 2; i++) {
+                ZipEntry entry = in.getNextEntry();
+                int index = Integer.parseInt(entry.getName().replaceAll("\\D", ""));
+                String expected = sampler.sample(InstanceSampler.seedFor(42, index)).toString();
+                assertEquals(expected, new String(readAll(in), StandardCharsets.UTF_8));
+            }
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    private static byte [] readAll(ZipInputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte [] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+}